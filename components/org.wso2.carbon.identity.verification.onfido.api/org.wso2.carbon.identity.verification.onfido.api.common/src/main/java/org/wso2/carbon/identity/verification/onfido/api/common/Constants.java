@@ -29,6 +29,7 @@ public class Constants {
     public static final String RESOURCE_WORKFLOW_RUN = "workflow_run";
     public static final String ACTION_WORKFLOW_RUN_COMPLETED = "workflow_run.completed";
     public static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+    public static final String WEBHOOK_SIGNATURE_HEADER = "X-SHA2-Signature";
 
     /**
      * Enum for identity verification related errors.
@@ -61,6 +62,10 @@ public class Constants {
                 "Invalid Onfido workflow run status provided.",
                 "An error occurred due to an invalid Onfido workflow run status being provided " +
                         "in the request."),
+        SERVER_ERROR_WEBHOOK_QUEUE_FULL("65008",
+                "Webhook processing unavailable.",
+                "The webhook event could not be queued for processing since too many events are pending. " +
+                        "Please retry later."),
 
         // Client errors
         CLIENT_ERROR_RESOLVING_IDVP("60001",
@@ -91,7 +96,10 @@ public class Constants {
                         "for assistance."),
         CLIENT_ERROR_INVALID_REQUEST("60007",
                 "Invalid request payload.",
-                "The request payload contains invalid input, such as an invalid workflow run ID.");
+                "The request payload contains invalid input, such as an invalid workflow run ID."),
+        CLIENT_ERROR_REQUEST_BODY_TOO_LARGE("60008",
+                "Request payload too large.",
+                "The request payload exceeds the maximum allowed size of %s bytes.");
 
         private final String code;
         private final String message;
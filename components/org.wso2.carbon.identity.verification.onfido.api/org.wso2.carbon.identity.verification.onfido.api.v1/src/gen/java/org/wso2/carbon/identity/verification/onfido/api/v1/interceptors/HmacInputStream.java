@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.api.v1.interceptors;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.crypto.Mac;
+
+/**
+ * An input stream that updates a HMAC with the bytes read through it, so that the signature of a request body can be
+ * computed while the body is parsed, without buffering it. The remaining bytes are read into the HMAC when the stream
+ * is closed, since a parser may stop reading before the end of the stream.
+ */
+public class HmacInputStream extends FilterInputStream {
+
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+
+    private final Mac mac;
+    private final long maxLength;
+    private long length;
+    private byte[] hmac;
+
+    /**
+     * Creates a HMAC input stream.
+     *
+     * @param in        The input stream of the request body.
+     * @param mac       The Mac to update with the request body, which is not shared with other threads.
+     * @param maxLength The maximum number of bytes that can be read.
+     */
+    public HmacInputStream(InputStream in, Mac mac, long maxLength) {
+
+        super(in);
+        this.mac = mac;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        int b = super.read();
+        if (b != -1) {
+            countBytes(1);
+            mac.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+
+        int readLength = super.read(b, off, len);
+        if (readLength > 0) {
+            countBytes(readLength);
+            mac.update(b, off, readLength);
+        }
+        return readLength;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+
+        // Skipped bytes are read, since they are part of the signed content.
+        byte[] buffer = new byte[(int) Math.min(n, DRAIN_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int readLength = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (readLength == -1) {
+                break;
+            }
+            skipped += readLength;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+
+        // Mark is not supported, since the bytes read after a reset would be added to the HMAC again.
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+
+        throw new IOException("Reset is not supported by the HMAC input stream.");
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        try {
+            getHmac();
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Gets the HMAC of the whole stream, reading the bytes which were not read yet.
+     *
+     * @return The HMAC of the stream.
+     * @throws IOException If an error occurs while reading the remaining bytes.
+     */
+    public byte[] getHmac() throws IOException {
+
+        if (hmac == null) {
+            byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // Read the remaining bytes into the HMAC.
+            }
+            hmac = mac.doFinal();
+        }
+        return hmac;
+    }
+
+    private void countBytes(int readLength) {
+
+        length += readLength;
+        if (length > maxLength) {
+            throw WebhookSignatureInterceptor.buildRequestBodyTooLargeError(maxLength);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.api.v1.interceptors;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.wso2.carbon.identity.verification.onfido.api.common.Constants;
+import org.wso2.carbon.identity.verification.onfido.api.common.error.APIError;
+import org.wso2.carbon.identity.verification.onfido.api.common.error.ErrorDTO;
+import org.wso2.carbon.identity.verification.onfido.api.common.error.ErrorResponse;
+import org.wso2.carbon.identity.verification.onfido.api.v1.factories.OnfidoIdvServiceFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.crypto.Mac;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.CLIENT_ERROR_REQUEST_BODY_TOO_LARGE;
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.CLIENT_ERROR_SIGNATURE_MISMATCH;
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.WEBHOOK_SIGNATURE_HEADER;
+
+/**
+ * An interceptor that computes the HMAC of the webhook request body while the body is read by the JSON provider.
+ * Only the POST requests of the webhook endpoint are intercepted. Requests without a signature, or with a request body
+ * larger than the configured maximum, are rejected before the request body is read.
+ * The request body stream is wrapped in a {@link HmacInputStream} keyed with the webhook token of the identity
+ * verification provider in the request path, and the stream is stored in a ThreadLocal variable so that the
+ * signature can be validated before the request is processed, without holding the request body in memory.
+ */
+public class WebhookSignatureInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    /**
+     * The endpoint property to configure the maximum size of the request body in bytes.
+     */
+    public static final String MAX_REQUEST_BODY_SIZE = "onfido.webhook.maxRequestBodySize";
+    private static final int DEFAULT_MAX_REQUEST_BODY_SIZE = 1024 * 1024;
+    private static final Pattern VERIFY_PATH_PATTERN = Pattern.compile("/([^/]+)/verify/?$");
+
+    // ThreadLocal variable to store the HMAC input stream of the request body for each thread.
+    private static final ThreadLocal<HmacInputStream> threadLocalRequestBody = new ThreadLocal<>();
+
+    private final Function<String, Mac> webhookMacResolver;
+
+    public WebhookSignatureInterceptor() {
+
+        this(idvpId -> OnfidoIdvServiceFactory.getOnfidoIdvService().getWebhookMac(idvpId));
+    }
+
+    WebhookSignatureInterceptor(Function<String, Mac> webhookMacResolver) {
+
+        super(Phase.READ);
+        this.webhookMacResolver = webhookMacResolver;
+    }
+
+    /**
+     * Handles the incoming message by wrapping the request body InputStream in a HMAC input stream keyed with the
+     * webhook token of the identity verification provider, and storing it in a ThreadLocal variable.
+     *
+     * @param message The CXF message containing the HTTP request.
+     * @throws Fault If the identity verification provider could not be resolved, or the request body is too large.
+     */
+    @Override
+    public void handleMessage(Message message) throws Fault {
+
+        threadLocalRequestBody.remove();
+        InputStream is = message.getContent(InputStream.class);
+        String idvpId = getIdVProviderId(message);
+        if (is == null || idvpId == null || !HttpMethod.POST.equals(message.get(Message.HTTP_REQUEST_METHOD))) {
+            return;
+        }
+
+        // Reject the requests which cannot pass the signature validation without reading the request body.
+        if (StringUtils.isBlank(getHeader(message, WEBHOOK_SIGNATURE_HEADER))) {
+            throw new Fault(buildError(Response.Status.UNAUTHORIZED, CLIENT_ERROR_SIGNATURE_MISMATCH));
+        }
+        int maxRequestBodySize = getMaxRequestBodySize(message);
+        if (getContentLength(message) > maxRequestBodySize) {
+            throw new Fault(buildRequestBodyTooLargeError(maxRequestBodySize));
+        }
+
+        Mac webhookMac;
+        try {
+            webhookMac = webhookMacResolver.apply(idvpId);
+        } catch (APIError e) {
+            throw new Fault(e);
+        }
+        HmacInputStream hmacInputStream = new HmacInputStream(is, webhookMac, maxRequestBodySize);
+        threadLocalRequestBody.set(hmacInputStream);
+        message.setContent(InputStream.class, hmacInputStream);
+    }
+
+    /**
+     * Gets the identity verification provider ID from the path of the webhook request.
+     *
+     * @param message The CXF message containing the HTTP request.
+     * @return The identity verification provider ID, or null if the request is not a webhook request.
+     */
+    private String getIdVProviderId(Message message) {
+
+        Object path = message.get(Message.PATH_INFO);
+        if (path == null) {
+            return null;
+        }
+        Matcher matcher = VERIFY_PATH_PATTERN.matcher(path.toString());
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Gets the content length of the request from the Content-Length header.
+     *
+     * @param message The CXF message containing the HTTP request.
+     * @return The content length, or -1 if the header is not present or invalid.
+     */
+    private long getContentLength(Message message) {
+
+        return NumberUtils.toLong(getHeader(message, HttpHeaders.CONTENT_LENGTH), -1);
+    }
+
+    /**
+     * Gets the first value of a header of the request.
+     *
+     * @param message    The CXF message containing the HTTP request.
+     * @param headerName The name of the header.
+     * @return The value of the header, or null if the header is not present.
+     */
+    private String getHeader(Message message, String headerName) {
+
+        Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS));
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.get(headerName);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Gets the maximum size of the request body configured for the endpoint.
+     *
+     * @param message The CXF message containing the HTTP request.
+     * @return The maximum size of the request body in bytes.
+     */
+    private int getMaxRequestBodySize(Message message) {
+
+        Object maxRequestBodySize = message.getContextualProperty(MAX_REQUEST_BODY_SIZE);
+        if (maxRequestBodySize == null) {
+            return DEFAULT_MAX_REQUEST_BODY_SIZE;
+        }
+        int value = NumberUtils.toInt(String.valueOf(maxRequestBodySize), -1);
+        return value > 0 ? value : DEFAULT_MAX_REQUEST_BODY_SIZE;
+    }
+
+    /**
+     * Builds the error returned when the request body exceeds the maximum size.
+     *
+     * @param maxRequestBodySize The maximum size of the request body in bytes.
+     * @return The API error.
+     */
+    static APIError buildRequestBodyTooLargeError(long maxRequestBodySize) {
+
+        return buildError(Response.Status.REQUEST_ENTITY_TOO_LARGE, CLIENT_ERROR_REQUEST_BODY_TOO_LARGE,
+                String.valueOf(maxRequestBodySize));
+    }
+
+    private static APIError buildError(Response.Status status, Constants.ErrorMessage errorMessage, Object... data) {
+
+        ErrorDTO errorDTO = new ErrorResponse.Builder()
+                .withCode(errorMessage.getCode())
+                .withMessage(errorMessage.getMessage())
+                .withDescription(String.format(errorMessage.getDescription(), data))
+                .build();
+        return new APIError(status, errorDTO);
+    }
+
+    /**
+     * Retrieves the HMAC of the request body, reading the part of the request body which was not read yet.
+     * This method should be called to validate the signature of the request body during processing.
+     *
+     * @return The HMAC of the request body, or null if the request body was not intercepted.
+     * @throws IOException If an error occurs while reading the request body.
+     */
+    public static byte[] getRequestBodyHmac() throws IOException {
+
+        HmacInputStream hmacInputStream = threadLocalRequestBody.get();
+        return hmacInputStream != null ? hmacInputStream.getHmac() : null;
+    }
+
+    /**
+     * Clears the ThreadLocal variable that stores the HMAC input stream of the request body.
+     * This method should be called after the request has been fully processed to avoid memory leaks.
+     */
+    public static void clear() {
+
+        threadLocalRequestBody.remove();
+    }
+}
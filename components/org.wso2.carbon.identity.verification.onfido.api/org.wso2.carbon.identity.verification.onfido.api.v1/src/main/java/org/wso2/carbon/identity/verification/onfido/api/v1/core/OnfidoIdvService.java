@@ -33,19 +33,28 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.verification.onfido.api.common.Constants;
 import org.wso2.carbon.identity.verification.onfido.api.common.error.APIError;
 import org.wso2.carbon.identity.verification.onfido.api.common.error.ErrorResponse;
-import org.wso2.carbon.identity.verification.onfido.api.v1.interceptors.RawRequestBodyInterceptor;
+import org.wso2.carbon.identity.verification.onfido.api.v1.interceptors.WebhookSignatureInterceptor;
 import org.wso2.carbon.identity.verification.onfido.api.v1.model.VerifyRequest;
 import org.wso2.carbon.identity.verification.onfido.api.v1.model.VerifyRequestPayload;
+import org.wso2.carbon.identity.verification.onfido.api.v1.model.VerifyRequestPayloadObject;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.ExpiringCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.IdVProviderCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.IdVProviderCacheEntry;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.WebhookEventCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.WorkflowRunStatusCache;
 import org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+import org.wso2.carbon.identity.verification.onfido.connector.webhook.WebhookProcessor;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -65,6 +74,7 @@ import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.SERVER_ERROR_RESOLVING_IDVP;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.SERVER_ERROR_SIGNATURE_VALIDATION_FAILURE;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.SERVER_ERROR_UPDATING_IDV_CLAIM_VERIFICATION_STATUS;
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.SERVER_ERROR_WEBHOOK_QUEUE_FULL;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.HMAC_SHA256_ALGORITHM;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.RESOURCE_WORKFLOW_RUN;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Util.getTenantId;
@@ -84,6 +94,7 @@ import static org.wso2.carbon.identity.verification.onfido.connector.constants.O
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_SIGNATURE_VALIDATION_PROCESSING;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_UNSUPPORTED_RESOURCE_TYPE_OR_ACTION;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_UPDATING_IDV_CLAIM_VERIFICATION_STATUS;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_WEBHOOK_QUEUE_FULL;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ONFIDO_COMPLETED_AT;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ONFIDO_VERIFICATION_STATUS;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ONFIDO_WORKFLOW_RUN_ID;
@@ -91,6 +102,7 @@ import static org.wso2.carbon.identity.verification.onfido.connector.constants.O
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.OUTPUT;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.RESULT;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.WEBHOOK_ASYNC_PROCESSING;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.WEBHOOK_TOKEN;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.WORKFLOW_ID;
 
@@ -100,9 +112,18 @@ import static org.wso2.carbon.identity.verification.onfido.connector.constants.O
 public class OnfidoIdvService {
 
     private static final Log log = LogFactory.getLog(OnfidoIdvService.class);
+    private static final int MAX_WEBHOOK_MAC_PROTOTYPES = 1000;
+    private static final long WEBHOOK_MAC_PROTOTYPE_TIMEOUT = TimeUnit.HOURS.toMillis(1);
+    private static final int MAX_IDV_PROVIDER_REFRESHES = 1000;
+    // A provider is resolved again due to a signature mismatch at most once within this interval.
+    private static final long IDV_PROVIDER_REFRESH_INTERVAL = TimeUnit.SECONDS.toMillis(10);
 
     private final IdVProviderManager idvProviderManager;
     private final IdentityVerificationManager identityVerificationManager;
+    private final ExpiringCache<WebhookMacPrototype> webhookMacPrototypes =
+            new ExpiringCache<>(MAX_WEBHOOK_MAC_PROTOTYPES, WEBHOOK_MAC_PROTOTYPE_TIMEOUT);
+    private final ExpiringCache<Boolean> idVProviderRefreshes =
+            new ExpiringCache<>(MAX_IDV_PROVIDER_REFRESHES, IDV_PROVIDER_REFRESH_INTERVAL);
 
     public OnfidoIdvService(IdVProviderManager idvProviderManager,
                             IdentityVerificationManager identityVerificationManager) {
@@ -125,23 +146,104 @@ public class OnfidoIdvService {
 
         int tenantId = getTenantId();
         try {
-            String rawRequestBody = RawRequestBodyInterceptor.getRawRequestBody();
-
             validateResourceTypeAndAction(verifyRequest);
 
-            IdVProvider idVProvider = getIdVProvider(idvpId, tenantId);
-            Map<String, String> idVProviderConfigProperties = getIdVConfigPropertyMap(idVProvider);
+            IdVProviderCacheEntry idVProviderCacheEntry = getValidatedIdVProvider(idvpId, tenantId);
+            IdVProvider idVProvider = idVProviderCacheEntry.getIdVProvider();
 
-            validateSignature(xSHA2Signature, idVProviderConfigProperties, rawRequestBody);
+            try {
+                validateSignature(xSHA2Signature, getRequestBodyHmac());
+            } catch (OnfidoClientException e) {
+                refreshIdVProvider(idvpId, tenantId);
+                throw e;
+            }
 
-            updateIdVClaims(verifyRequest, idvpId, tenantId, idVProvider);
+            // Skip the events redelivered by Onfido, which were already processed.
+            String webhookEventKey = getWebhookEventKey(verifyRequest, idvpId, tenantId);
+            if (WebhookEventCache.getInstance().isProcessed(webhookEventKey)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Skipping the already processed Onfido webhook event of the workflow run: " +
+                            verifyRequest.getPayload().getObject().getId());
+                }
+                return;
+            }
+
+            if (Boolean.parseBoolean(idVProviderCacheEntry.getConfigProperties().get(WEBHOOK_ASYNC_PROCESSING))) {
+                queueIdVClaimsUpdate(verifyRequest, idvpId, tenantId, idVProvider, webhookEventKey);
+            } else {
+                updateIdVClaims(verifyRequest, idvpId, tenantId, idVProvider);
+                WebhookEventCache.getInstance().markProcessed(webhookEventKey);
+            }
         } catch (OnfidoClientException e) {
             handleClientException(e);
         } catch (OnfidoServerException e) {
             handleServerException(e);
         } finally {
-            RawRequestBodyInterceptor.clear();
+            WebhookSignatureInterceptor.clear();
+        }
+    }
+
+    /**
+     * Gets a HMAC SHA-256 Mac keyed with the webhook token of the Identity Verification Provider, to compute the
+     * signature of the webhook request body while it is read.
+     *
+     * @param idvpId The identity verification provider ID.
+     * @return A Mac initialized with the webhook token, which is not shared with other threads.
+     */
+    public Mac getWebhookMac(String idvpId) {
+
+        int tenantId = getTenantId();
+        Mac webhookMac = null;
+        try {
+            Map<String, String> idVProviderConfigProperties =
+                    getValidatedIdVProvider(idvpId, tenantId).getConfigProperties();
+            webhookMac = getWebhookMac(idvpId, tenantId, idVProviderConfigProperties.get(WEBHOOK_TOKEN));
+        } catch (OnfidoClientException e) {
+            handleClientException(e);
+        } catch (OnfidoServerException e) {
+            handleServerException(e);
+        }
+        return webhookMac;
+    }
+
+    /**
+     * Retrieves the validated Identity Verification Provider along with its configuration properties from the cache,
+     * resolving and caching them if they are not cached.
+     *
+     * @param idvpId   The identity verification provider ID.
+     * @param tenantId The tenant ID.
+     * @return The cache entry of the IdVProvider and its configuration properties.
+     * @throws OnfidoClientException If the provider is not found or is disabled.
+     * @throws OnfidoServerException If the provider could not be resolved or its configuration is invalid.
+     */
+    private IdVProviderCacheEntry getValidatedIdVProvider(String idvpId, int tenantId) throws OnfidoClientException,
+            OnfidoServerException {
+
+        IdVProviderCache idVProviderCache = IdVProviderCache.getInstance();
+        IdVProviderCacheEntry cacheEntry = idVProviderCache.get(idvpId, tenantId);
+        if (cacheEntry != null) {
+            return cacheEntry;
         }
+        IdVProvider idVProvider = getIdVProvider(idvpId, tenantId);
+        return idVProviderCache.put(idvpId, tenantId, idVProvider, getIdVConfigPropertyMap(idVProvider));
+    }
+
+    /**
+     * Makes the next request resolve the Identity Verification Provider again after a signature mismatch, since the
+     * webhook token may have been rotated. Requests with invalid signatures are not authenticated, hence the provider
+     * is resolved again at most once per refresh interval, and otherwise when its cache entry expires.
+     *
+     * @param idvpId   The identity verification provider ID.
+     * @param tenantId The tenant ID.
+     */
+    private void refreshIdVProvider(String idvpId, int tenantId) {
+
+        String refreshKey = tenantId + ":" + idvpId;
+        if (idVProviderRefreshes.get(refreshKey) != null) {
+            return;
+        }
+        idVProviderRefreshes.put(refreshKey, Boolean.TRUE);
+        IdVProviderCache.getInstance().invalidate(idvpId, tenantId);
     }
 
     /**
@@ -204,75 +306,117 @@ public class OnfidoIdvService {
         }
     }
 
+    /**
+     * Retrieves the HMAC SHA-256 of the webhook request body, which is computed while the request body is read.
+     *
+     * @return The HMAC SHA-256 of the request body.
+     * @throws OnfidoServerException If the request body could not be read or its HMAC was not computed.
+     */
+    private byte[] getRequestBodyHmac() throws OnfidoServerException {
+
+        try {
+            byte[] requestBodyHmac = WebhookSignatureInterceptor.getRequestBodyHmac();
+            if (requestBodyHmac == null) {
+                throw new OnfidoServerException(ERROR_SIGNATURE_VALIDATION_PROCESSING.getCode(),
+                        ERROR_SIGNATURE_VALIDATION_PROCESSING.getMessage());
+            }
+            return requestBodyHmac;
+        } catch (IOException e) {
+            throw new OnfidoServerException(ERROR_SIGNATURE_VALIDATION_PROCESSING.getCode(),
+                    ERROR_SIGNATURE_VALIDATION_PROCESSING.getMessage(), e);
+        }
+    }
+
     /**
      * Validates the signature provided in the webhook request against the expected signature.
      * Implementation logic extracted from
      * https://github.com/onfido/onfido-java/blob/master/src/main/java/com/onfido/WebhookEventVerifier.java#L81
      *
-     * @param xSHA2Signature              The SHA-2 signature from the Onfido webhook.
-     * @param idVProviderConfigProperties The configuration properties of the Identity Verification Provider.
-     * @param rawRequestBody              The raw verification request payload from Onfido.
+     * @param xSHA2Signature    The SHA-2 signature from the Onfido webhook.
+     * @param expectedSignature The HMAC SHA-256 of the raw verification request payload from Onfido.
      * @throws OnfidoClientException If the signature validation fails.
-     * @throws OnfidoServerException If a server-side error occurs during validation.
      */
-    private void validateSignature(String xSHA2Signature, Map<String, String> idVProviderConfigProperties,
-                                   String rawRequestBody) throws OnfidoClientException, OnfidoServerException {
+    private void validateSignature(String xSHA2Signature, byte[] expectedSignature) throws OnfidoClientException {
 
         if (StringUtils.isBlank(xSHA2Signature)) {
             throw new OnfidoClientException(ERROR_SIGNATURE.getCode(), ERROR_SIGNATURE.getMessage());
         }
 
-        String webhookToken = idVProviderConfigProperties.get(WEBHOOK_TOKEN);
-
-        Mac sha256Hmac;
-        SecretKeySpec secretKey;
-        try {
-            sha256Hmac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
-            secretKey = new SecretKeySpec(webhookToken.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM);
-            sha256Hmac.init(secretKey);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new OnfidoServerException(ERROR_SIGNATURE_VALIDATION_PROCESSING.getCode(),
-                    ERROR_SIGNATURE_VALIDATION_PROCESSING.getMessage(), e);
-        }
-
-        // Compute the HMAC SHA-256 of the raw request body.
-        String expectedSignature = encodeHexString(sha256Hmac.doFinal(rawRequestBody.getBytes(StandardCharsets.UTF_8)));
-
         // Perform a time-safe comparison of the signatures.
-        if (!MessageDigest.isEqual(expectedSignature.getBytes(StandardCharsets.UTF_8),
-                xSHA2Signature.getBytes(StandardCharsets.UTF_8))) {
+        byte[] receivedSignature = decodeHexString(xSHA2Signature);
+        if (receivedSignature == null || !MessageDigest.isEqual(expectedSignature, receivedSignature)) {
             throw new OnfidoClientException(ERROR_SIGNATURE_VALIDATION.getCode(),
                     ERROR_SIGNATURE_VALIDATION.getMessage());
         }
     }
 
     /**
-     * Encodes a byte array into a hexadecimal string.
+     * Gets a HMAC SHA-256 Mac keyed with the webhook token of the Identity Verification Provider. A keyed prototype
+     * is kept per provider for up to an hour and cloned for each webhook, so that the algorithm lookup and key setup
+     * are repeated only when the webhook token changes or the prototype expires. The number of prototypes is bounded.
      *
-     * @param byteArray The byte array to encode.
-     * @return The hexadecimal string representation of the byte array.
+     * @param idvpId       The identity verification provider ID.
+     * @param tenantId     The tenant ID.
+     * @param webhookToken The webhook token of the Identity Verification Provider.
+     * @return A Mac initialized with the webhook token, which is not shared with other threads.
+     * @throws OnfidoServerException If the Mac could not be initialized.
      */
-    private String encodeHexString(byte[] byteArray) {
+    private Mac getWebhookMac(String idvpId, int tenantId, String webhookToken) throws OnfidoServerException {
 
-        StringBuilder hexStringBuffer = new StringBuilder();
-        for (byte b : byteArray) {
-            hexStringBuffer.append(byteToHex(b));
+        String prototypeKey = tenantId + ":" + idvpId;
+        WebhookMacPrototype macPrototype = webhookMacPrototypes.get(prototypeKey);
+        if (macPrototype == null || !macPrototype.webhookToken.equals(webhookToken)) {
+            macPrototype = new WebhookMacPrototype(webhookToken, createWebhookMac(webhookToken));
+            webhookMacPrototypes.put(prototypeKey, macPrototype);
+        }
+        try {
+            return (Mac) macPrototype.mac.clone();
+        } catch (CloneNotSupportedException e) {
+            // The provider of the algorithm does not support cloning, hence the Mac is initialized per webhook.
+            return createWebhookMac(webhookToken);
         }
-        return hexStringBuffer.toString();
     }
 
     /**
-     * Converts a byte into a hexadecimal string.
+     * Creates a HMAC SHA-256 Mac initialized with the webhook token.
      *
-     * @param num The byte to convert.
-     * @return The hexadecimal string representation of the byte.
+     * @param webhookToken The webhook token of the Identity Verification Provider.
+     * @return The initialized Mac.
+     * @throws OnfidoServerException If the algorithm is not available or the webhook token is not a valid key.
      */
-    private String byteToHex(byte num) {
+    private Mac createWebhookMac(String webhookToken) throws OnfidoServerException {
 
-        char[] hexDigits = new char[2];
-        hexDigits[0] = Character.forDigit((num >> 4) & 0xF, 16);
-        hexDigits[1] = Character.forDigit((num & 0xF), 16);
-        return new String(hexDigits);
+        try {
+            Mac sha256Hmac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+            sha256Hmac.init(new SecretKeySpec(webhookToken.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+            return sha256Hmac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new OnfidoServerException(ERROR_SIGNATURE_VALIDATION_PROCESSING.getCode(),
+                    ERROR_SIGNATURE_VALIDATION_PROCESSING.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a hexadecimal string into a byte array.
+     *
+     * @param hexString The hexadecimal string to decode.
+     * @return The decoded byte array, or null if the string is not a valid hexadecimal string.
+     */
+    private byte[] decodeHexString(String hexString) {
+
+        if (hexString.length() % 2 != 0) {
+            return null;
+        }
+        byte[] byteArray = new byte[hexString.length() / 2];
+        for (int i = 0; i < byteArray.length; i++) {
+            int highDigit = Character.digit(hexString.charAt(2 * i), 16);
+            int lowDigit = Character.digit(hexString.charAt(2 * i + 1), 16);
+            if (highDigit < 0 || lowDigit < 0) {
+                return null;
+            }
+            byteArray[i] = (byte) ((highDigit << 4) | lowDigit);
+        }
+        return byteArray;
     }
 
     /**
@@ -341,12 +485,55 @@ public class OnfidoIdvService {
             // Persist the updated claim information in the database.
             persistUpdatedClaims(idVClaims, tenantId);
 
+            // Cache the ending status so that completing the verification does not request it from Onfido again.
+            WorkflowRunStatusCache.getInstance().put(idvpId, workflowRunId, tenantId, workflowRunStatus);
         } catch (IdentityVerificationException e) {
             throw new OnfidoServerException(ERROR_UPDATING_IDV_CLAIM_VERIFICATION_STATUS.getCode(),
                     ERROR_UPDATING_IDV_CLAIM_VERIFICATION_STATUS.getMessage(), e);
         }
     }
 
+    /**
+     * Builds the key identifying a webhook event by its workflow run, status and completion time.
+     *
+     * @param verifyRequest The verification request payload from Onfido.
+     * @param idvpId        The identity verification provider ID.
+     * @param tenantId      The tenant ID.
+     * @return The key of the webhook event.
+     */
+    private String getWebhookEventKey(VerifyRequest verifyRequest, String idvpId, int tenantId) {
+
+        VerifyRequestPayloadObject payloadObject = verifyRequest.getPayload().getObject();
+        return WebhookEventCache.getEventKey(tenantId, idvpId, payloadObject.getId(), payloadObject.getStatus(),
+                payloadObject.getCompletedAtIso8601());
+    }
+
+    /**
+     * Queues the update of the identity verification claims to be processed asynchronously, so that the webhook is
+     * acknowledged without waiting for the claims to be updated.
+     *
+     * @param verifyRequest   The Onfido verification request containing the workflow run details and attribute
+     *                        verification results.
+     * @param idvpId          The identity verification provider ID.
+     * @param tenantId        The tenant ID.
+     * @param idVProvider     The identity verification provider.
+     * @param webhookEventKey The key of the webhook event, recorded once the claims are updated.
+     * @throws OnfidoServerException If the update could not be queued since too many updates are pending, or the
+     *                               connector is not active.
+     */
+    private void queueIdVClaimsUpdate(VerifyRequest verifyRequest, String idvpId, int tenantId,
+                                      IdVProvider idVProvider, String webhookEventKey) throws OnfidoServerException {
+
+        WebhookProcessor webhookProcessor = WebhookProcessor.getInstance();
+        boolean queued = webhookProcessor != null && webhookProcessor.submit(() -> {
+            updateIdVClaims(verifyRequest, idvpId, tenantId, idVProvider);
+            WebhookEventCache.getInstance().markProcessed(webhookEventKey);
+        });
+        if (!queued) {
+            throw new OnfidoServerException(ERROR_WEBHOOK_QUEUE_FULL.getCode(), ERROR_WEBHOOK_QUEUE_FULL.getMessage());
+        }
+    }
+
     /**
      * Retrieves the identity verification claims associated with a specific workflow run ID.
      *
@@ -576,6 +763,9 @@ public class OnfidoIdvService {
             errorMessage = SERVER_ERROR_INVALID_WORKFLOW_RUN_STATUS;
         } else if (ERROR_UPDATING_IDV_CLAIM_VERIFICATION_STATUS.getCode().equals(errorCode)) {
             errorMessage = SERVER_ERROR_UPDATING_IDV_CLAIM_VERIFICATION_STATUS;
+        } else if (ERROR_WEBHOOK_QUEUE_FULL.getCode().equals(errorCode)) {
+            status = Response.Status.SERVICE_UNAVAILABLE;
+            errorMessage = SERVER_ERROR_WEBHOOK_QUEUE_FULL;
         }
 
         throw handleException(status, e, errorMessage, StringUtils.EMPTY);
@@ -632,4 +822,19 @@ public class OnfidoIdvService {
 
         return ArrayUtils.isNotEmpty(data) ? String.format(description, (Object[]) data) : description;
     }
+
+    /**
+     * A Mac keyed with a webhook token, which is only cloned and never used to compute a signature itself.
+     */
+    private static class WebhookMacPrototype {
+
+        private final String webhookToken;
+        private final Mac mac;
+
+        WebhookMacPrototype(String webhookToken, Mac mac) {
+
+            this.webhookToken = webhookToken;
+            this.mac = mac;
+        }
+    }
 }
@@ -37,23 +37,34 @@ import org.wso2.carbon.extension.identity.verification.provider.model.IdVProvide
 import org.wso2.carbon.identity.verification.onfido.api.common.Util;
 import org.wso2.carbon.identity.verification.onfido.api.common.error.APIError;
 import org.wso2.carbon.identity.verification.onfido.api.common.error.ErrorDTO;
-import org.wso2.carbon.identity.verification.onfido.api.v1.interceptors.RawRequestBodyInterceptor;
+import org.wso2.carbon.identity.verification.onfido.api.v1.interceptors.WebhookSignatureInterceptor;
 import org.wso2.carbon.identity.verification.onfido.api.v1.model.VerifyRequest;
 import org.wso2.carbon.identity.verification.onfido.api.v1.model.VerifyRequestPayload;
 import org.wso2.carbon.identity.verification.onfido.api.v1.model.VerifyRequestPayloadObject;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.IdVProviderCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.WebhookEventCache;
 import org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants;
+import org.wso2.carbon.identity.verification.onfido.connector.webhook.WebhookEvent;
+import org.wso2.carbon.identity.verification.onfido.connector.webhook.WebhookProcessor;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -63,6 +74,7 @@ import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.CLIENT_ERROR_SIGNATURE_MISMATCH;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.CLIENT_ERROR_UNSUPPORTED_RESOURCE_TYPE_OR_ACTION;
 import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.SERVER_ERROR_IDV_PROVIDER_CONFIG_PROPERTIES_INVALID;
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.ErrorMessage.SERVER_ERROR_WEBHOOK_QUEUE_FULL;
 
 public class OnfidoIdvServiceTest {
 
@@ -82,6 +94,7 @@ public class OnfidoIdvServiceTest {
     private static final String BASE_URL = "base_url";
     private static final String WEBHOOK_TOKEN = "webhook_token";
     private static final String TOKEN = "token";
+    private static final String WEBHOOK_ASYNC_PROCESSING = "webhook_async_processing";
 
     private static final String TEST_IDVP_ID = "test-idvp-id";
     private static final int TEST_TENANT_ID = 1;
@@ -142,13 +155,13 @@ public class OnfidoIdvServiceTest {
             "\"properties\":{}}}}}}}";
 
     private static MockedStatic<Util> mockedUtil;
-    private static MockedStatic<RawRequestBodyInterceptor> mockedInterceptor;
+    private static MockedStatic<WebhookSignatureInterceptor> mockedInterceptor;
 
     @BeforeClass
     public static void setUpClass() {
 
         mockedUtil = mockStatic(Util.class);
-        mockedInterceptor = mockStatic(RawRequestBodyInterceptor.class);
+        mockedInterceptor = mockStatic(WebhookSignatureInterceptor.class);
     }
 
     @AfterClass
@@ -162,6 +175,8 @@ public class OnfidoIdvServiceTest {
     public void setUp() throws Exception {
 
         MockitoAnnotations.openMocks(this);
+        IdVProviderCache.getInstance().clear();
+        WebhookEventCache.getInstance().clear();
         setupMocks();
     }
 
@@ -170,7 +185,9 @@ public class OnfidoIdvServiceTest {
         onfidoIdvService = new OnfidoIdvService(idVProviderManager, identityVerificationManager);
 
         mockedUtil.when(Util::getTenantId).thenReturn(TEST_TENANT_ID);
-        mockedInterceptor.when(RawRequestBodyInterceptor::getRawRequestBody).thenReturn(RAW_REQUEST_BODY);
+        mockedInterceptor.when(WebhookSignatureInterceptor::getRequestBodyHmac).thenAnswer(invocation ->
+                onfidoIdvService.getWebhookMac(TEST_IDVP_ID)
+                        .doFinal(RAW_REQUEST_BODY.getBytes(StandardCharsets.UTF_8)));
 
         when(idVProviderManager.getIdVProvider(eq(TEST_IDVP_ID), eq(TEST_TENANT_ID))).thenReturn(idVProvider);
         when(idVProvider.isEnabled()).thenReturn(true);
@@ -374,6 +391,9 @@ public class OnfidoIdvServiceTest {
 
         return new Object[][]{
                 {TEST_INVALID_SIGNATURE},
+                {TEST_VALID_SIGNATURE.substring(1)},
+                {TEST_VALID_SIGNATURE.substring(2)},
+                {TEST_VALID_SIGNATURE.replace('f', '0')},
                 {null}
         };
     }
@@ -425,6 +445,114 @@ public class OnfidoIdvServiceTest {
         testVerifyWithWorkflowStatus(workflowStatus, false);
     }
 
+    @Test
+    public void testIdVProviderRefreshedOnceOnSignatureMismatch() throws Exception {
+
+        when(identityVerificationManager.getIdVClaimsByMetadata(eq(METADATA_ONFIDO_WORKFLOW_RUN_ID),
+                eq(TEST_WORKFLOW_RUN_ID), eq(TEST_IDVP_ID), eq(TEST_TENANT_ID)))
+                .thenAnswer(invocation -> createMockIdVClaimsBeforeVerificationStatusUpdate());
+        VerifyRequest verifyRequest = createVerifyRequest(OnfidoConstants.WorkflowRunStatus.APPROVED);
+
+        onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+        onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+        verify(idVProviderManager, times(1)).getIdVProvider(TEST_IDVP_ID, TEST_TENANT_ID);
+
+        // The first mismatch resolves the provider again, in case the webhook token was rotated. Further mismatches
+        // within the refresh interval do not, so that unauthenticated requests cannot force a lookup on every call.
+        for (int i = 0; i < 3; i++) {
+            try {
+                onfidoIdvService.verify(TEST_INVALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+                fail("Expected APIError to be thrown");
+            } catch (APIError e) {
+                assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), e.getStatus().getStatusCode());
+            }
+        }
+        onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+        verify(idVProviderManager, times(2)).getIdVProvider(TEST_IDVP_ID, TEST_TENANT_ID);
+    }
+
+    @Test
+    public void testRedeliveredWebhookSkipped() throws Exception {
+
+        when(identityVerificationManager.getIdVClaimsByMetadata(eq(METADATA_ONFIDO_WORKFLOW_RUN_ID),
+                eq(TEST_WORKFLOW_RUN_ID), eq(TEST_IDVP_ID), eq(TEST_TENANT_ID)))
+                .thenAnswer(invocation -> createMockIdVClaimsBeforeVerificationStatusUpdate());
+
+        onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID,
+                createVerifyRequest(OnfidoConstants.WorkflowRunStatus.APPROVED));
+        onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID,
+                createVerifyRequest(OnfidoConstants.WorkflowRunStatus.APPROVED));
+
+        verify(identityVerificationManager, times(1)).getIdVClaimsByMetadata(METADATA_ONFIDO_WORKFLOW_RUN_ID,
+                TEST_WORKFLOW_RUN_ID, TEST_IDVP_ID, TEST_TENANT_ID);
+        verify(identityVerificationManager, times(3)).updateIdVClaim(anyString(), any(IdVClaim.class), anyInt());
+    }
+
+    @Test
+    public void testSignatureValidatedWithRotatedWebhookToken() throws Exception {
+
+        when(identityVerificationManager.getIdVClaimsByMetadata(eq(METADATA_ONFIDO_WORKFLOW_RUN_ID),
+                eq(TEST_WORKFLOW_RUN_ID), eq(TEST_IDVP_ID), eq(TEST_TENANT_ID)))
+                .thenAnswer(invocation -> createMockIdVClaimsBeforeVerificationStatusUpdate());
+        VerifyRequest verifyRequest = createVerifyRequest(OnfidoConstants.WorkflowRunStatus.APPROVED);
+        onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+
+        // Rotate the webhook token, so that the signature of the old token must no longer be accepted.
+        IdVConfigProperty[] rotatedConfigProperties = createMockConfigProperties();
+        rotatedConfigProperties[2].setValue("rotated_" + TEST_WEBHOOK_TOKEN);
+        when(idVProvider.getIdVConfigProperties()).thenReturn(rotatedConfigProperties);
+        IdVProviderCache.getInstance().clear();
+
+        try {
+            onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+            fail("Expected APIError to be thrown");
+        } catch (APIError e) {
+            assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), e.getStatus().getStatusCode());
+        }
+    }
+
+    @Test
+    public void testVerifyWithAsyncProcessing() throws Exception {
+
+        IdVConfigProperty asyncProcessingProperty = new IdVConfigProperty();
+        asyncProcessingProperty.setName(WEBHOOK_ASYNC_PROCESSING);
+        asyncProcessingProperty.setValue(Boolean.TRUE.toString());
+        IdVConfigProperty[] configProperties = createMockConfigProperties();
+        IdVConfigProperty[] asyncConfigProperties = Arrays.copyOf(configProperties, configProperties.length + 1);
+        asyncConfigProperties[configProperties.length] = asyncProcessingProperty;
+        when(idVProvider.getIdVConfigProperties()).thenReturn(asyncConfigProperties);
+        VerifyRequest verifyRequest = createVerifyRequest(OnfidoConstants.WorkflowRunStatus.APPROVED);
+
+        WebhookProcessor webhookProcessor = mock(WebhookProcessor.class);
+        try (MockedStatic<WebhookProcessor> mockedWebhookProcessor = mockStatic(WebhookProcessor.class)) {
+            mockedWebhookProcessor.when(WebhookProcessor::getInstance).thenReturn(webhookProcessor);
+
+            // The webhook is acknowledged once the claim update is queued.
+            when(webhookProcessor.submit(any(WebhookEvent.class))).thenReturn(true);
+            onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+            verify(identityVerificationManager, never()).updateIdVClaim(anyString(), any(IdVClaim.class), anyInt());
+
+            // The webhook is rejected when the queue is full, so that Onfido redelivers it later.
+            when(webhookProcessor.submit(any(WebhookEvent.class))).thenReturn(false);
+            try {
+                onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+                fail("Expected APIError to be thrown");
+            } catch (APIError e) {
+                assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), e.getStatus().getStatusCode());
+                assertEquals(SERVER_ERROR_WEBHOOK_QUEUE_FULL.getCode(), e.getResponseEntity().getCode());
+            }
+
+            // The webhook is rejected while the connector is not active, since no processor is running.
+            mockedWebhookProcessor.when(WebhookProcessor::getInstance).thenReturn(null);
+            try {
+                onfidoIdvService.verify(TEST_VALID_SIGNATURE, TEST_IDVP_ID, verifyRequest);
+                fail("Expected APIError to be thrown");
+            } catch (APIError e) {
+                assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), e.getStatus().getStatusCode());
+            }
+        }
+    }
+
     private void testVerifyWithWorkflowStatus(OnfidoConstants.WorkflowRunStatus workflowStatus, boolean isApproved)
             throws Exception {
 
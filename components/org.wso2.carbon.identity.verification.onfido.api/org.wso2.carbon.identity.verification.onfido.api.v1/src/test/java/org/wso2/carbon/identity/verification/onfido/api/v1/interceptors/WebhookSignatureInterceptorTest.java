@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.api.v1.interceptors;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.verification.onfido.api.common.error.APIError;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.HMAC_SHA256_ALGORITHM;
+import static org.wso2.carbon.identity.verification.onfido.api.common.Constants.WEBHOOK_SIGNATURE_HEADER;
+
+public class WebhookSignatureInterceptorTest {
+
+    private static final String TEST_WEBHOOK_TOKEN = "test_webhook_token";
+    private static final String TEST_SIGNATURE = "test_signature";
+    private static final String TEST_VERIFY_PATH = "/t/carbon.super/idv/onfido/v1/test_idvp_id/verify";
+    private static final String REQUEST_BODY = "{\"payload\":{\"resource_type\":\"workflow_run\"," +
+            "\"action\":\"workflow_run.completed\"}}";
+
+    private final WebhookSignatureInterceptor webhookSignatureInterceptor =
+            new WebhookSignatureInterceptor(idvpId -> createMac());
+
+    @AfterMethod
+    public void tearDown() {
+
+        WebhookSignatureInterceptor.clear();
+    }
+
+    @Test
+    public void testHmacComputedWhileRequestBodyIsRead() throws Exception {
+
+        byte[] requestBody = REQUEST_BODY.getBytes(StandardCharsets.UTF_8);
+        Message message = createMessage(TEST_VERIFY_PATH, requestBody, String.valueOf(requestBody.length));
+
+        webhookSignatureInterceptor.handleMessage(message);
+
+        // Read only a part of the request body before closing, as a JSON parser may do.
+        InputStream inputStream = message.getContent(InputStream.class);
+        byte[] buffer = new byte[10];
+        assertEquals(inputStream.read(buffer), buffer.length);
+        inputStream.close();
+
+        assertEquals(WebhookSignatureInterceptor.getRequestBodyHmac(), createMac().doFinal(requestBody));
+    }
+
+    @Test
+    public void testRequestBodyOfOtherResourcesNotIntercepted() throws IOException {
+
+        byte[] requestBody = REQUEST_BODY.getBytes(StandardCharsets.UTF_8);
+        Message otherPathMessage = createMessage("/t/carbon.super/idv/onfido/v1/test_idvp_id", requestBody, null);
+        Message otherMethodMessage = createMessage(TEST_VERIFY_PATH, requestBody, null);
+        otherMethodMessage.put(Message.HTTP_REQUEST_METHOD, HttpMethod.GET);
+
+        for (Message message : new Message[]{otherPathMessage, otherMethodMessage}) {
+            InputStream inputStream = message.getContent(InputStream.class);
+            webhookSignatureInterceptor.handleMessage(message);
+
+            assertSame(message.getContent(InputStream.class), inputStream);
+            assertNull(WebhookSignatureInterceptor.getRequestBodyHmac());
+        }
+    }
+
+    @Test
+    public void testRejectUnsignedRequest() {
+
+        byte[] requestBody = REQUEST_BODY.getBytes(StandardCharsets.UTF_8);
+        Message message = createMessage(TEST_VERIFY_PATH, requestBody, String.valueOf(requestBody.length));
+        ((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS)).remove(WEBHOOK_SIGNATURE_HEADER);
+        InputStream inputStream = message.getContent(InputStream.class);
+        try {
+            webhookSignatureInterceptor.handleMessage(message);
+            fail("Expected the unsigned request to be rejected.");
+        } catch (Fault e) {
+            assertTrue(e.getCause() instanceof APIError);
+            assertSame(((APIError) e.getCause()).getStatus(), Response.Status.UNAUTHORIZED);
+        }
+        assertSame(message.getContent(InputStream.class), inputStream);
+    }
+
+    @Test
+    public void testRejectRequestBodyLargerThanMaximum() throws IOException {
+
+        byte[] requestBody = REQUEST_BODY.getBytes(StandardCharsets.UTF_8);
+        String maxRequestBodySize = String.valueOf(requestBody.length - 1);
+
+        // Request bodies with a larger Content-Length are rejected before being read.
+        Message message = createMessage(TEST_VERIFY_PATH, requestBody, String.valueOf(requestBody.length));
+        message.put(WebhookSignatureInterceptor.MAX_REQUEST_BODY_SIZE, maxRequestBodySize);
+        try {
+            webhookSignatureInterceptor.handleMessage(message);
+            fail("Expected the request body to be rejected.");
+        } catch (Fault e) {
+            assertTrue(e.getCause() instanceof APIError);
+            assertSame(((APIError) e.getCause()).getStatus(), Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+
+        // Request bodies without a Content-Length are rejected once the maximum size is read.
+        message = createMessage(TEST_VERIFY_PATH, requestBody, null);
+        message.put(WebhookSignatureInterceptor.MAX_REQUEST_BODY_SIZE, maxRequestBodySize);
+        webhookSignatureInterceptor.handleMessage(message);
+        try {
+            WebhookSignatureInterceptor.getRequestBodyHmac();
+            fail("Expected the request body to be rejected.");
+        } catch (APIError e) {
+            assertSame(e.getStatus(), Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+    }
+
+    private Message createMessage(String path, byte[] requestBody, String contentLength) {
+
+        Message message = new MessageImpl();
+        message.setExchange(new ExchangeImpl());
+        message.put(Message.PATH_INFO, path);
+        message.put(Message.HTTP_REQUEST_METHOD, HttpMethod.POST);
+        message.setContent(InputStream.class, new ByteArrayInputStream(requestBody));
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put(WEBHOOK_SIGNATURE_HEADER, Collections.singletonList(TEST_SIGNATURE));
+        if (contentLength != null) {
+            headers.put(HttpHeaders.CONTENT_LENGTH, Collections.singletonList(contentLength));
+        }
+        message.put(Message.PROTOCOL_HEADERS, headers);
+        return message;
+    }
+
+    private static Mac createMac() {
+
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+            mac.init(new SecretKeySpec(TEST_WEBHOOK_TOKEN.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+            return mac;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
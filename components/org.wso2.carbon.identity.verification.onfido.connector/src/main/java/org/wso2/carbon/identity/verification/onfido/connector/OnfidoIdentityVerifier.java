@@ -31,11 +31,18 @@ import org.wso2.carbon.extension.identity.verification.mgt.model.IdentityVerifie
 import org.wso2.carbon.extension.identity.verification.mgt.utils.IdentityVerificationConstants;
 import org.wso2.carbon.extension.identity.verification.mgt.utils.IdentityVerificationExceptionMgt;
 import org.wso2.carbon.extension.identity.verification.provider.model.IdVProvider;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.IdVProviderCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.IdVProviderCacheEntry;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.SdkTokenCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.WorkflowRunStatusCache;
+import org.wso2.carbon.identity.verification.onfido.connector.claim.IdVClaimIndex;
 import org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
 import org.wso2.carbon.identity.verification.onfido.connector.internal.OnfidoIDVDataHolder;
 import org.wso2.carbon.identity.verification.onfido.connector.web.OnfidoAPIClient;
+import org.wso2.carbon.identity.verification.onfido.connector.web.OnfidoAsyncAPIClient;
+import org.wso2.carbon.identity.verification.onfido.connector.web.OnfidoRetryHandler;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.UniqueIDUserStoreManager;
@@ -47,6 +54,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import static org.wso2.carbon.extension.identity.verification.mgt.utils.IdentityVerificationConstants.ErrorMessage.ERROR_GETTING_USER_STORE;
@@ -56,6 +66,7 @@ import static org.wso2.carbon.identity.verification.onfido.connector.constants.O
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_CLAIM_MAPPING_NOT_FOUND;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_CLAIM_VALUE_NOT_EXIST;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_GETTING_ONFIDO_WORKFLOW_STATUS;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDENTITY_VERIFICATION;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDV_PROVIDER_CONFIG_PROPERTIES_EMPTY;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDV_PROVIDER_INVALID_OR_DISABLED;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_INITIATING_ONFIDO_VERIFICATION;
@@ -87,47 +98,94 @@ import static org.wso2.carbon.user.core.constants.UserCoreErrorConstants.ErrorMe
 public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
 
     private static final Log log = LogFactory.getLog(OnfidoIdentityVerifier.class);
+    // An initiation sends the applicant request, and then the workflow run and SDK token requests concurrently.
+    private static final int INITIATION_REQUEST_ROUNDS = 2;
+    private static final SingleFlight<List<IdVClaim>> initiationSingleFlight = new SingleFlight<>();
 
     @Override
     public IdentityVerifierData verifyIdentity(String userId, IdentityVerifierData identityVerifierData, int tenantId)
             throws IdentityVerificationException {
 
-        // Retrieve identity verification provider.
-        IdVProvider idVProvider = getValidatedIdVProvider(identityVerifierData, tenantId);
-
-        // Retrieve identity verification provider's configurations.
-        Map<String, String> idVProviderConfigProperties = getValidatedIdVConfigProperties(idVProvider);
+        // Retrieve identity verification provider and its configurations.
+        IdVProviderCacheEntry idVProviderCacheEntry = getValidatedIdVProvider(identityVerifierData, tenantId);
+        IdVProvider idVProvider = idVProviderCacheEntry.getIdVProvider();
+        Map<String, String> idVProviderConfigProperties = idVProviderCacheEntry.getConfigProperties();
 
         // Extract the verification flow status sent via the verification request.
         OnfidoConstants.VerificationFlowStatus verificationFlowStatus = getVerificationFlowStatus(identityVerifierData);
         List<IdVClaim> idVClaims;
 
-        switch (verificationFlowStatus) {
-            case INITIATED:
-                // Initiate Onfido verification through creating/updating applicant and retrieving sdk token.
-                idVClaims = initiateOnfidoVerification(userId, identityVerifierData, idVProvider,
-                        idVProviderConfigProperties, tenantId);
-                break;
-            case COMPLETED:
-                // Complete the onfido verification flow by updating the workflow run status.
-                idVClaims = completeOnfidoVerification(userId, identityVerifierData, idVProvider,
-                        idVProviderConfigProperties, tenantId);
-                break;
-            case REINITIATED:
-                 // Resends the SDK token for claims with AWAITING_INPUT status.
-                 // This reinitiates the Onfido verification flow for incomplete verifications.
-                idVClaims = reinitiateOnfidoVerification(userId, identityVerifierData, idVProvider,
-                        idVProviderConfigProperties, tenantId);
-                break;
-            default:
-                throw new IdentityVerificationClientException(ERROR_INVALID_ONFIDO_VERIFICATION_FLOW_STATUS.getCode(),
-                        ERROR_INVALID_ONFIDO_VERIFICATION_FLOW_STATUS.getMessage());
+        try {
+            switch (verificationFlowStatus) {
+                case INITIATED:
+                    // Initiate Onfido verification through creating/updating applicant and retrieving sdk token.
+                    // Concurrent initiations of the user share a single interaction with Onfido, and wait for it
+                    // only as long as its requests may take with their retries. Each caller gets its own list.
+                    idVClaims = new ArrayList<>(initiationSingleFlight.execute(
+                            getInitiationKey(userId, idVProvider.getIdVProviderUuid(), tenantId),
+                            getVerificationRequiredClaimsKey(identityVerifierData),
+                            OnfidoRetryHandler.getMaxCallDuration(idVProviderConfigProperties)
+                                    .multipliedBy(INITIATION_REQUEST_ROUNDS),
+                            () -> initiateOnfidoVerification(userId, identityVerifierData, idVProvider,
+                                    idVProviderConfigProperties, tenantId)));
+                    break;
+                case COMPLETED:
+                    // Complete the onfido verification flow by updating the workflow run status.
+                    idVClaims = completeOnfidoVerification(userId, identityVerifierData, idVProvider,
+                            idVProviderConfigProperties, tenantId);
+                    break;
+                case REINITIATED:
+                    // Resends the SDK token for claims with AWAITING_INPUT status.
+                    // This reinitiates the Onfido verification flow for incomplete verifications.
+                    idVClaims = reinitiateOnfidoVerification(userId, identityVerifierData, idVProvider,
+                            idVProviderConfigProperties, tenantId);
+                    break;
+                default:
+                    throw new IdentityVerificationClientException(
+                            ERROR_INVALID_ONFIDO_VERIFICATION_FLOW_STATUS.getCode(),
+                            ERROR_INVALID_ONFIDO_VERIFICATION_FLOW_STATUS.getMessage());
+            }
+        } catch (IdentityVerificationClientException e) {
+            if (isIdVProviderConfigurationError(e)) {
+                // The cached configuration may be stale, hence it is resolved again on the next request.
+                IdVProviderCache.getInstance().invalidate(identityVerifierData.getIdVProviderId(), tenantId);
+            }
+            throw e;
         }
         identityVerifierData.setIdVClaims(idVClaims);
 
         return identityVerifierData;
     }
 
+    /**
+     * Builds the key of the verification initiations of a user, which must not run concurrently.
+     *
+     * @param userId        The unique identifier of the user.
+     * @param idVProviderId The ID of the identity verification provider.
+     * @param tenantId      The ID of the tenant.
+     * @return The key of the verification initiations of the user.
+     */
+    private static String getInitiationKey(String userId, String idVProviderId, int tenantId) {
+
+        return tenantId + ":" + idVProviderId + ":" + userId;
+    }
+
+    /**
+     * Builds a key identifying the set of claims requested for verification, regardless of their order.
+     *
+     * @param identityVerifierData Data required for identity verification that was passed via the verification request.
+     * @return The key of the requested claims.
+     * @throws IdentityVerificationClientException If no claims are requested for verification.
+     */
+    private static String getVerificationRequiredClaimsKey(IdentityVerifierData identityVerifierData)
+            throws IdentityVerificationClientException {
+
+        return getVerificationRequiredClaims(identityVerifierData).stream()
+                .map(idVClaim -> String.valueOf(idVClaim.getClaimUri()))
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
     /**
      * Initiates the Onfido verification process for a user.
      *
@@ -150,14 +208,17 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
 
         List<IdVClaim> claimsToUpdate = new ArrayList<>();
 
+        // Fetch the existing IdV claims of the user once, to be shared by the following steps.
+        IdVClaimIndex existingIdVClaims = getExistingIdVClaims(userId, tenantId, idVProvider);
+
         // The applicant need to be created per user. Hence, if there is already an applicant ID
         // associated with the user, retrieve it. This ID is unique per user in the Onfido system.
-        String applicantId = getApplicantId(userId, tenantId, idVProvider);
+        String applicantId = getApplicantId(existingIdVClaims);
 
         // Get the map of Onfido claim names and values for the wso2 claims that haven't initiated verification yet.
         Map<String, String> unverifiedOnfidoClaimsWithValueMap =
-                getUnverifiedOnfidoClaimsWithValueMap(userId, tenantId, idVProvider, verificationRequiredClaims,
-                        claimsToUpdate);
+                getUnverifiedOnfidoClaimsWithValueMap(userId, tenantId, idVProvider, existingIdVClaims,
+                        verificationRequiredClaims, claimsToUpdate);
         if (unverifiedOnfidoClaimsWithValueMap.isEmpty()) {
             throw new IdentityVerificationClientException(ERROR_VERIFICATION_ALREADY_INITIATED.getCode(),
                     ERROR_VERIFICATION_ALREADY_INITIATED.getMessage());
@@ -168,9 +229,16 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
             applicantId = createOrUpdateApplicant(idVProviderConfigProperties, unverifiedOnfidoClaimsWithValueMap,
                     applicantId);
 
-            // Create a new workflow run and generate an SDK token for the applicant.
-            String workflowRunId = createWorkflowRun(idVProviderConfigProperties, applicantId);
-            String sdkToken = createSdkToken(idVProviderConfigProperties, applicantId);
+            // Create a new workflow run and generate an SDK token for the applicant. Both only depend on the
+            // applicant ID, hence the two requests are sent to Onfido concurrently.
+            CompletableFuture<JSONObject> workflowRunFuture = OnfidoAsyncAPIClient.createWorkflowRun(
+                    idVProviderConfigProperties, getWorkflowRunRequestBody(idVProviderConfigProperties, applicantId));
+            CompletableFuture<JSONObject> sdkTokenFuture = OnfidoAsyncAPIClient.createSDKToken(
+                    idVProviderConfigProperties, getSdkTokenRequestBody(applicantId));
+            awaitAll(workflowRunFuture, sdkTokenFuture);
+            String workflowRunId = workflowRunFuture.join().getString(ID);
+            String sdkToken = sdkTokenFuture.join().getString(TOKEN);
+            SdkTokenCache.getInstance().put(idVProvider.getIdVProviderUuid(), applicantId, tenantId, sdkToken);
 
             // Update the metadata of each claim to include the Onfido verification process information and
             // persist the changes in the database.
@@ -219,23 +287,39 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
                                                       Map<String, String> idVProviderConfigProperties, int tenantId)
             throws IdentityVerificationException {
 
-        // Extract workflow run ID and check the status.
-        String workflowRunId = getWorkflowRunId(userId, tenantId, idVProvider, identityVerifierData);
-        OnfidoConstants.WorkflowRunStatus
-                workflowRunStatus = getWorkflowRunStatusFromAPI(workflowRunId, idVProviderConfigProperties);
-
-        // Retrieve IdVClaims associated with the workflow run ID.
+        // Extract workflow run ID and retrieve IdVClaims associated with it.
+        String workflowRunId = getWorkflowRunId(getExistingIdVClaims(userId, tenantId, idVProvider),
+                identityVerifierData);
         List<IdVClaim> idVClaims = getIdVClaimsByWorkflowRunId(workflowRunId, idVProvider.getIdVProviderUuid(),
                 tenantId);
 
+        /*
+         * Skip requesting the status from Onfido if the workflow run is already known to have reached an ending
+         * status, such as when the webhook notification was processed before the SDK interaction was reported. The
+         * claims then already hold the ending status, which must not be overwritten.
+         */
+        if (isWorkflowRunFinished(idVClaims, workflowRunId, idVProvider.getIdVProviderUuid(), tenantId)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Skipping the workflow run status request to Onfido as the workflow run: " + workflowRunId +
+                        " has already finished.");
+            }
+            return idVClaims;
+        }
+        OnfidoConstants.WorkflowRunStatus
+                workflowRunStatus = getWorkflowRunStatusFromAPI(workflowRunId, idVProviderConfigProperties);
+        WorkflowRunStatusCache.getInstance().put(idVProvider.getIdVProviderUuid(), workflowRunId, tenantId,
+                workflowRunStatus);
+
         // Update the workflow run status.
+        List<IdVClaim> unverifiedIdVClaims = new ArrayList<>();
         for (IdVClaim idVClaim : idVClaims) {
             if (!idVClaim.isVerified()) {
                 updateMetadataWithWorkflowStatus(idVClaim, workflowRunStatus);
-                // Persist the updated claim information in the database.
-                updateIdVClaim(userId, idVClaim, tenantId);
+                unverifiedIdVClaims.add(idVClaim);
             }
         }
+        // Persist the updated claim information in the database.
+        updateIdVClaims(userId, unverifiedIdVClaims, tenantId);
         return idVClaims;
     }
 
@@ -259,7 +343,8 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
             throws IdentityVerificationException {
 
         // Extract workflow run ID.
-        String workflowRunId = getWorkflowRunId(userId, tenantId, idVProvider, identityVerifierData);
+        String workflowRunId = getWorkflowRunId(getExistingIdVClaims(userId, tenantId, idVProvider),
+                identityVerifierData);
 
         // Retrieve IdVClaims associated with the workflow run ID.
         List<IdVClaim> idVClaims = getIdVClaimsByWorkflowRunId(workflowRunId, idVProvider.getIdVProviderUuid(),
@@ -277,8 +362,8 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
             // Extract applicant ID from claim metadata.
             String applicantId = getApplicantIdFromClaims(idVClaims);
 
-            // Create a new SDK token.
-            String sdkToken = createSdkToken(idVProviderConfigProperties, applicantId);
+            // Reuse the SDK token issued recently for the applicant, or else create a new SDK token.
+            String sdkToken = getSdkToken(idVProviderConfigProperties, idVProvider, applicantId, tenantId);
 
             // Update all claims with the new SDK token.
             idVClaims.forEach(claim -> claim.getMetadata().put(SDK_TOKEN, sdkToken));
@@ -298,22 +383,44 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
     }
 
     /**
-     * Retrieves and validates the Identity Verification Provider.
+     * Retrieves and validates the Identity Verification Provider along with its configuration properties. Validated
+     * providers are cached per tenant, so the provider is only resolved from the database when it is not cached.
      *
      * @param identityVerifierData Data required for identity verification that was passed via the verification request.
      * @param tenantId             The ID of the tenant.
-     * @return A validated IdVProvider object.
+     * @return The cache entry of the validated IdVProvider and its configuration properties.
      * @throws IdentityVerificationClientException If the idv provider is null, disabled, or invalid.
      */
-    private IdVProvider getValidatedIdVProvider(IdentityVerifierData identityVerifierData, int tenantId)
+    private IdVProviderCacheEntry getValidatedIdVProvider(IdentityVerifierData identityVerifierData, int tenantId)
             throws IdentityVerificationException {
 
+        IdVProviderCache idVProviderCache = IdVProviderCache.getInstance();
+        IdVProviderCacheEntry cacheEntry = idVProviderCache.get(identityVerifierData.getIdVProviderId(), tenantId);
+        if (cacheEntry != null) {
+            return cacheEntry;
+        }
+
         IdVProvider idVProvider = getIdVProvider(identityVerifierData, tenantId);
         if (idVProvider == null || !idVProvider.isEnabled()) {
             throw new IdentityVerificationClientException(ERROR_IDV_PROVIDER_INVALID_OR_DISABLED.getCode(),
                     ERROR_IDV_PROVIDER_INVALID_OR_DISABLED.getMessage());
         }
-        return idVProvider;
+        Map<String, String> idVProviderConfigProperties = getValidatedIdVConfigProperties(idVProvider);
+        return idVProviderCache.put(identityVerifierData.getIdVProviderId(), tenantId, idVProvider,
+                idVProviderConfigProperties);
+    }
+
+    /**
+     * Checks whether the verification failed since Onfido rejected the configuration of the IdV Provider.
+     *
+     * @param e The client exception thrown during the verification.
+     * @return True if the API token, base URL or workflow ID was rejected.
+     */
+    private boolean isIdVProviderConfigurationError(IdentityVerificationClientException e) {
+
+        return ERROR_INVALID_TOKEN.getCode().equals(e.getErrorCode()) ||
+                ERROR_INVALID_BASE_URL.getCode().equals(e.getErrorCode()) ||
+                ERROR_INVALID_WORKFLOW_ID.getCode().equals(e.getErrorCode());
     }
 
     /**
@@ -384,22 +491,56 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
     }
 
     /**
-     * Creates a new workflow run in the Onfido system for the given applicant.
+     * Builds the request body to create a new workflow run in the Onfido system for the given applicant.
      *
      * @param idVProviderConfigProperties A map containing configuration properties for the IDV provider.
      * @param applicantId                 The unique identifier of the applicant in the Onfido system.
-     * @return The ID of the newly created workflow run.
-     * @throws OnfidoServerException If there's an error in creating the workflow run or processing the response.
+     * @return A JSON object containing the workflow ID and the applicant ID.
      */
-    private String createWorkflowRun(Map<String, String> idVProviderConfigProperties, String applicantId)
-            throws OnfidoServerException, OnfidoClientException {
+    private JSONObject getWorkflowRunRequestBody(Map<String, String> idVProviderConfigProperties,
+                                                 String applicantId) {
 
-        JSONObject workflowRunRequestBody = new JSONObject()
+        return new JSONObject()
                 .put(WORKFLOW_ID, idVProviderConfigProperties.get(WORKFLOW_ID))
                 .put(APPLICANT_ID, applicantId);
-        JSONObject workflowRunJsonObject =
-                OnfidoAPIClient.createWorkflowRun(idVProviderConfigProperties, workflowRunRequestBody);
-        return workflowRunJsonObject.getString(ID);
+    }
+
+    /**
+     * Builds the request body to create an SDK token in the Onfido system for a specific applicant.
+     *
+     * @param applicantId The unique identifier of the applicant in the Onfido system.
+     * @return A JSON object containing the applicant ID.
+     */
+    private JSONObject getSdkTokenRequestBody(String applicantId) {
+
+        return new JSONObject().put(APPLICANT_ID, applicantId);
+    }
+
+    /**
+     * Gets an SDK token for a specific applicant. A token issued recently for the applicant is reused while it is
+     * valid, and a new token is created in the Onfido system otherwise.
+     *
+     * @param idVProviderConfigProperties A map containing configuration properties for the IDV provider.
+     * @param idVProvider                 The identity verification provider.
+     * @param applicantId                 The unique identifier of the applicant in the Onfido system.
+     * @param tenantId                    The ID of the tenant.
+     * @return The value of the SDK token.
+     * @throws OnfidoServerException If there's an error in creating the SDK token or processing the response.
+     */
+    private String getSdkToken(Map<String, String> idVProviderConfigProperties, IdVProvider idVProvider,
+                               String applicantId, int tenantId) throws OnfidoServerException, OnfidoClientException {
+
+        SdkTokenCache sdkTokenCache = SdkTokenCache.getInstance();
+        String sdkToken = sdkTokenCache.get(idVProvider.getIdVProviderUuid(), applicantId, tenantId);
+        if (sdkToken != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Reusing the cached SDK token of the Onfido applicant: " + applicantId);
+            }
+            return sdkToken;
+        }
+        sdkToken = createSdkToken(idVProviderConfigProperties, applicantId);
+        sdkTokenCache.put(idVProvider.getIdVProviderUuid(), applicantId, tenantId, sdkToken);
+        return sdkToken;
     }
 
     /**
@@ -413,12 +554,58 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
     private String createSdkToken(Map<String, String> idVProviderConfigProperties, String applicantId)
             throws OnfidoServerException, OnfidoClientException {
 
-        JSONObject sdkTokenRequestBody = new JSONObject().put(APPLICANT_ID, applicantId);
         JSONObject sdkTokenJsonObject =
-                OnfidoAPIClient.createSDKToken(idVProviderConfigProperties, sdkTokenRequestBody);
+                OnfidoAPIClient.createSDKToken(idVProviderConfigProperties, getSdkTokenRequestBody(applicantId));
         return sdkTokenJsonObject.getString(TOKEN);
     }
 
+    /**
+     * Waits until all the given Onfido requests are completed. As soon as one of the requests fails, the remaining
+     * requests are cancelled, so that the verification request does not wait on calls whose results are discarded.
+     *
+     * @param futures The futures of the Onfido requests.
+     * @throws OnfidoServerException If a request fails with a server error or cannot be completed.
+     * @throws OnfidoClientException If a request fails with a client error.
+     */
+    private static void awaitAll(CompletableFuture<?>... futures) throws OnfidoServerException, OnfidoClientException {
+
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    Arrays.stream(futures).forEach(sibling -> sibling.cancel(true));
+                }
+            });
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException | CancellationException e) {
+            // Report the failure that caused the cancellation rather than the cancellation itself.
+            Throwable cause = Arrays.stream(futures)
+                    .filter(future -> future.isCompletedExceptionally() && !future.isCancelled())
+                    .map(OnfidoIdentityVerifier::getFailureCause)
+                    .findFirst()
+                    .orElse(e.getCause() != null ? e.getCause() : e);
+            if (cause instanceof OnfidoServerException) {
+                throw (OnfidoServerException) cause;
+            } else if (cause instanceof OnfidoClientException) {
+                throw (OnfidoClientException) cause;
+            }
+            throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                    ERROR_IDENTITY_VERIFICATION.getMessage(), cause);
+        }
+    }
+
+    private static Throwable getFailureCause(CompletableFuture<?> future) {
+
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
     /**
      * Retrieves the Onfido workflow status for a specified workflow run ID.
      *
@@ -488,6 +675,40 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
                 (String) idVClaims.get(0).getMetadata().get(ONFIDO_WORKFLOW_STATUS));
     }
 
+    /**
+     * Checks whether the workflow run is already known to have reached an ending status, either from the ending
+     * status persisted in the metadata of all its claims by the webhook notification, or from the ending status
+     * cached when the webhook notification or a previous status request was processed.
+     *
+     * @param idVClaims       A list of IdVClaims associated with the workflow run.
+     * @param workflowRunId   The unique identifier of the Onfido workflow run.
+     * @param idVProviderUuid The UUID of the identity verification provider.
+     * @param tenantId        The ID of the tenant.
+     * @return True if the workflow run has ended, false if its status has to be requested from Onfido.
+     */
+    private boolean isWorkflowRunFinished(List<IdVClaim> idVClaims, String workflowRunId, String idVProviderUuid,
+                                          int tenantId) {
+
+        if (WorkflowRunStatusCache.getInstance().get(idVProviderUuid, workflowRunId, tenantId) != null) {
+            return true;
+        }
+        for (IdVClaim idVClaim : idVClaims) {
+            if (idVClaim.getMetadata() == null) {
+                return false;
+            }
+            try {
+                OnfidoConstants.WorkflowRunStatus workflowRunStatus = OnfidoConstants.WorkflowRunStatus.fromString(
+                        (String) idVClaim.getMetadata().get(ONFIDO_WORKFLOW_STATUS));
+                if (!workflowRunStatus.isEndingStatus()) {
+                    return false;
+                }
+            } catch (OnfidoServerException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Extracts the Onfido applicant ID from the metadata of the IdVClaim.
      *
@@ -534,13 +755,14 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
      * <p>
      * This method handles a list of verification-required claims for a given user. It performs the following tasks:
      * 1. Filters out claims already associated with an Onfido applicant ID. For the remaining claims,
-     * it fetches their values from the user store.
+     * it fetches their values from the user store in a single call.
      * 2. Identifies existing claims that need to be updated.
      * 3. Creates and return a map of Onfido claim names to their corresponding user store values.
      *
      * @param userId                     The unique identifier of the user.
      * @param tenantId                   The ID of the tenant.
      * @param idVProvider                The identity verification provider.
+     * @param existingIdVClaims          The existing IdV claims of the user for the identity verification provider.
      * @param verificationRequiredClaims List of claims that require verification.
      * @param claimsToUpdate             Output parameter: List to be populated with claims that need updating.
      * @return A map where keys are Onfido claim names and values are the corresponding claim values
@@ -550,6 +772,7 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
      */
     private Map<String, String> getUnverifiedOnfidoClaimsWithValueMap(String userId, int tenantId,
                                                                       IdVProvider idVProvider,
+                                                                      IdVClaimIndex existingIdVClaims,
                                                                       List<IdVClaim> verificationRequiredClaims,
                                                                       List<IdVClaim> claimsToUpdate)
             throws IdentityVerificationException {
@@ -557,30 +780,39 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
         Map<String, String> idVProviderClaimWithValueMap = new HashMap<>();
         try {
             Map<String, String> idVClaimMap = idVProvider.getClaimMappings();
-            UniqueIDUserStoreManager uniqueIDUserStoreManager = getUniqueIdEnabledUserStoreManager(tenantId);
 
+            // Identify the claims of which the values are not yet sent to Onfido as applicant data.
+            List<String> unverifiedClaimUris = new ArrayList<>();
             for (IdVClaim idVClaim : verificationRequiredClaims) {
-                String claimUri = idVClaim.getClaimUri();
-                IdVClaim existingIdVClaim = OnfidoIDVDataHolder.getIdentityVerificationManager()
-                        .getIdVClaim(userId, idVClaim.getClaimUri(), idVProvider.getIdVProviderUuid(), tenantId);
-
+                IdVClaim existingIdVClaim = existingIdVClaims.getIdVClaim(idVClaim.getClaimUri());
                 if (existingIdVClaim == null || existingIdVClaim.getMetadata() == null ||
                         existingIdVClaim.getMetadata().get(ONFIDO_APPLICANT_ID) == null) {
-                    String claimValue = uniqueIDUserStoreManager.getUserClaimValueWithID(userId, claimUri, null);
-                    if (StringUtils.isEmpty(claimValue)) {
-                        throw new IdentityVerificationClientException(ERROR_CLAIM_VALUE_NOT_EXIST.getCode(),
-                                String.format(ERROR_CLAIM_VALUE_NOT_EXIST.getMessage(), claimUri));
-                    }
-                    if (!idVClaimMap.containsKey(claimUri)) {
-                        throw new IdentityVerificationClientException(ERROR_CLAIM_MAPPING_NOT_FOUND.getCode(),
-                                String.format(ERROR_CLAIM_MAPPING_NOT_FOUND.getMessage(), claimUri));
-                    }
-                    idVProviderClaimWithValueMap.put(idVClaimMap.get(claimUri), claimValue);
+                    unverifiedClaimUris.add(idVClaim.getClaimUri());
                 }
                 if (existingIdVClaim != null) {
                     claimsToUpdate.add(existingIdVClaim);
                 }
             }
+            if (unverifiedClaimUris.isEmpty()) {
+                return idVProviderClaimWithValueMap;
+            }
+
+            // Retrieve the values of all the unverified claims from the user store at once.
+            UniqueIDUserStoreManager uniqueIDUserStoreManager = getUniqueIdEnabledUserStoreManager(tenantId);
+            Map<String, String> claimValues = uniqueIDUserStoreManager.getUserClaimValuesWithID(userId,
+                    unverifiedClaimUris.toArray(new String[0]), null);
+            for (String claimUri : unverifiedClaimUris) {
+                String claimValue = claimValues == null ? null : claimValues.get(claimUri);
+                if (StringUtils.isEmpty(claimValue)) {
+                    throw new IdentityVerificationClientException(ERROR_CLAIM_VALUE_NOT_EXIST.getCode(),
+                            String.format(ERROR_CLAIM_VALUE_NOT_EXIST.getMessage(), claimUri));
+                }
+                if (!idVClaimMap.containsKey(claimUri)) {
+                    throw new IdentityVerificationClientException(ERROR_CLAIM_MAPPING_NOT_FOUND.getCode(),
+                            String.format(ERROR_CLAIM_MAPPING_NOT_FOUND.getMessage(), claimUri));
+                }
+                idVProviderClaimWithValueMap.put(idVClaimMap.get(claimUri), claimValue);
+            }
         } catch (UserStoreException e) {
             if (StringUtils.isNotBlank(e.getMessage()) &&
                     e.getMessage().contains(ERROR_CODE_NON_EXISTING_USER.getCode())) {
@@ -635,8 +867,8 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
         for (IdVClaim claim : claimsToUpdate) {
             claim.setIsVerified(false);
             claim.setMetadata(metadata);
-            updateIdVClaim(userId, claim, tenantId);
         }
+        updateIdVClaims(userId, claimsToUpdate, tenantId);
 
         List<IdVClaim> claimsToStore = new ArrayList<>();
 
@@ -657,43 +889,61 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
     }
 
     /**
-     * Retrieves the applicant ID from the metadata of an existing identity verification claim associated
-     * with the given user and identity verification provider.
+     * Updates the given identity verification claims of the user.
+     *
+     * @param userId    The unique identifier of the user.
+     * @param idVClaims The identity verification claims to update.
+     * @param tenantId  The ID of the tenant.
+     * @throws IdentityVerificationException If there's an error updating the claims.
+     */
+    private void updateIdVClaims(String userId, List<IdVClaim> idVClaims, int tenantId)
+            throws IdentityVerificationException {
+
+        for (IdVClaim idVClaim : idVClaims) {
+            updateIdVClaim(userId, idVClaim, tenantId);
+        }
+    }
+
+    /**
+     * Retrieves the existing identity verification claims of the given user and identity verification provider,
+     * indexed by claim URI and by metadata key.
      *
-     * @param userId      The unique identifier of the user whose applicant ID is being retrieved.
+     * @param userId      The unique identifier of the user.
      * @param tenantId    The ID of the tenant.
      * @param idVProvider The identity verification provider.
-     * @return The applicant ID if found, otherwise returns null.
+     * @return The index of the existing IdV claims of the user.
      * @throws IdentityVerificationException If there is an error accessing the claims.
      */
-    private static String getApplicantId(String userId, int tenantId, IdVProvider idVProvider)
+    private static IdVClaimIndex getExistingIdVClaims(String userId, int tenantId, IdVProvider idVProvider)
             throws IdentityVerificationException {
 
-        String applicantId = null;
-        IdVClaim[] idVClaims = OnfidoIDVDataHolder.getIdentityVerificationManager()
-                .getIdVClaims(userId, idVProvider.getIdVProviderUuid(), null, tenantId);
-        for (IdVClaim idVClaim : idVClaims) {
-            if (idVClaim != null && idVClaim.getMetadata() != null &&
-                    idVClaim.getMetadata().get(ONFIDO_APPLICANT_ID) != null) {
-                applicantId = (String) idVClaim.getMetadata().get(ONFIDO_APPLICANT_ID);
-                break;
-            }
-        }
-        return applicantId;
+        return new IdVClaimIndex(OnfidoIDVDataHolder.getIdentityVerificationManager()
+                .getIdVClaims(userId, idVProvider.getIdVProviderUuid(), null, tenantId));
+    }
+
+    /**
+     * Retrieves the applicant ID from the metadata of an existing identity verification claim associated
+     * with the user and identity verification provider.
+     *
+     * @param existingIdVClaims The existing IdV claims of the user for the identity verification provider.
+     * @return The applicant ID if found, otherwise returns null.
+     */
+    private static String getApplicantId(IdVClaimIndex existingIdVClaims) {
+
+        List<IdVClaim> idVClaims = existingIdVClaims.getIdVClaimsWithMetadata(ONFIDO_APPLICANT_ID);
+        return idVClaims.isEmpty() ? null : (String) idVClaims.get(0).getMetadata().get(ONFIDO_APPLICANT_ID);
     }
 
     /**
      * Retrieves the workflow run ID from the metadata of an existing identity verification claim associated
      * with the given user and identity verification provider.
      *
-     * @param userId               The unique identifier of the user whose applicant ID is being retrieved.
-     * @param tenantId             The ID of the tenant.
-     * @param idVProvider          The identity verification provider.
+     * @param existingIdVClaims    The existing IdV claims of the user for the identity verification provider.
      * @param identityVerifierData Data required for identity verification that was passed via the verification request.
-     * @return The applicant ID if found, otherwise returns null.
-     * @throws IdentityVerificationException If there is an error accessing the claims.
+     * @return The workflow run ID.
+     * @throws IdentityVerificationException If the workflow run ID is not found.
      */
-    private static String getWorkflowRunId(String userId, int tenantId, IdVProvider idVProvider,
+    private static String getWorkflowRunId(IdVClaimIndex existingIdVClaims,
                                            IdentityVerifierData identityVerifierData)
             throws IdentityVerificationException {
 
@@ -704,13 +954,8 @@ public class OnfidoIdentityVerifier extends AbstractIdentityVerifier {
                 .collect(Collectors.toSet());
 
         String workflowRunId = null;
-        IdVClaim[] idVClaims = OnfidoIDVDataHolder.getIdentityVerificationManager()
-                .getIdVClaims(userId, idVProvider.getIdVProviderUuid(), null, tenantId);
-        for (IdVClaim idVClaim : idVClaims) {
-            if (idVClaim != null && idVClaim.getMetadata() != null &&
-                    idVClaim.getMetadata().get(ONFIDO_WORKFLOW_RUN_ID) != null &&
-                            verificationRequiredClaimsUri.contains(idVClaim.getClaimUri())) {
-
+        for (IdVClaim idVClaim : existingIdVClaims.getIdVClaimsWithMetadata(ONFIDO_WORKFLOW_RUN_ID)) {
+            if (verificationRequiredClaimsUri.contains(idVClaim.getClaimUri())) {
                 workflowRunId = (String) idVClaim.getMetadata().get(ONFIDO_WORKFLOW_RUN_ID);
                 break;
             }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector;
+
+import org.wso2.carbon.extension.identity.verification.mgt.exception.IdentityVerificationException;
+import org.wso2.carbon.extension.identity.verification.mgt.exception.IdentityVerificationServerException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_CONCURRENT_REQUEST_TIMEOUT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDENTITY_VERIFICATION;
+
+/**
+ * Coalesces concurrent calls made for the same key, so that only one of them is in flight at a time. A call made
+ * while an identical request is in flight for the key waits for it and shares its result or exception, instead of
+ * repeating it. A call made while a different request is in flight for the key waits for that request to complete
+ * before it runs, so that the calls of a key never run concurrently. A call waits for the requests in flight only up
+ * to the given timeout, and fails if they have not completed by then.
+ *
+ * @param <T> The type of the result of the calls.
+ */
+final class SingleFlight<T> {
+
+    private final Map<String, InFlightCall<T>> inFlightCalls = new ConcurrentHashMap<>();
+
+    /**
+     * A call coalesced by the single flight.
+     *
+     * @param <T> The type of the result of the call.
+     */
+    @FunctionalInterface
+    interface Call<T> {
+
+        T call() throws IdentityVerificationException;
+    }
+
+    /**
+     * Executes the call, or shares the result of an identical request which is already in flight for the key.
+     *
+     * @param key        The key of which the calls must not run concurrently.
+     * @param requestKey  The key identifying identical requests of the key.
+     * @param waitTimeout The maximum time to wait for the requests in flight for the key.
+     * @param call        The call to execute.
+     * @return The result of the call.
+     * @throws IdentityVerificationException If the call, or the identical request in flight, fails, or the requests
+     *                                       in flight do not complete within the wait timeout.
+     */
+    T execute(String key, String requestKey, Duration waitTimeout, Call<T> call) throws IdentityVerificationException {
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            InFlightCall<T> ownCall = new InFlightCall<>(requestKey);
+            InFlightCall<T> inFlightCall = inFlightCalls.putIfAbsent(key, ownCall);
+            if (inFlightCall == null) {
+                try {
+                    T result = call.call();
+                    ownCall.result.complete(result);
+                    return result;
+                } catch (Throwable e) {
+                    ownCall.result.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlightCalls.remove(key, ownCall);
+                }
+            }
+            inFlightCall.waitingCalls.incrementAndGet();
+            try {
+                T result = inFlightCall.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (inFlightCall.requestKey.equals(requestKey)) {
+                    return result;
+                }
+            } catch (ExecutionException e) {
+                if (inFlightCall.requestKey.equals(requestKey)) {
+                    throw unwrap(e);
+                }
+                // The outcome of a different request does not affect this call.
+            } catch (TimeoutException e) {
+                throw new IdentityVerificationServerException(ERROR_CONCURRENT_REQUEST_TIMEOUT.getCode(),
+                        ERROR_CONCURRENT_REQUEST_TIMEOUT.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdentityVerificationServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                        ERROR_IDENTITY_VERIFICATION.getMessage(), e);
+            } finally {
+                inFlightCall.waitingCalls.decrementAndGet();
+            }
+            // A different request was in flight for the key, hence the call runs now that it has completed.
+        }
+    }
+
+    /**
+     * Gets the number of calls waiting for the request in flight for the key.
+     *
+     * @param key The key of which the calls must not run concurrently.
+     * @return The number of waiting calls, or 0 if no request is in flight for the key.
+     */
+    int getWaitingCallCount(String key) {
+
+        InFlightCall<T> inFlightCall = inFlightCalls.get(key);
+        return inFlightCall == null ? 0 : inFlightCall.waitingCalls.get();
+    }
+
+    /**
+     * Gets the exception of a failed request in flight. Unchecked exceptions are rethrown as they are.
+     */
+    private static IdentityVerificationException unwrap(ExecutionException e) {
+
+        Throwable cause = e.getCause();
+        if (cause instanceof IdentityVerificationException) {
+            return (IdentityVerificationException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IdentityVerificationServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                ERROR_IDENTITY_VERIFICATION.getMessage(), cause);
+    }
+
+    /**
+     * A call in flight, the future of its result and the number of calls waiting for it.
+     *
+     * @param <T> The type of the result of the call.
+     */
+    private static final class InFlightCall<T> {
+
+        private final String requestKey;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger waitingCalls = new AtomicInteger();
+
+        private InFlightCall(String requestKey) {
+
+            this.requestKey = requestKey;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded in-memory cache of which the entries expire after a time to live. The caches of the connector are built
+ * on this class, and differ only in their keys, values, capacity and time to live. When the cache is full, the
+ * entries cached first are evicted first. Expired entries are removed when they are read or evicted.
+ *
+ * @param <V> The type of the cached values.
+ */
+public class ExpiringCache<V> {
+
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final Map<String, CacheEntry<V>> cacheEntries;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries       The maximum number of entries in the cache.
+     * @param timeToLiveMillis The default time in milliseconds for which an entry is cached.
+     */
+    public ExpiringCache(int maxEntries, long timeToLiveMillis) {
+
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.cacheEntries = new LinkedHashMap<String, CacheEntry<V>>() {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<V>> eldest) {
+
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached value.
+     *
+     * @param key The key of the value.
+     * @return The cached value, or null if no value is cached or the cached value has expired.
+     */
+    public synchronized V get(String key) {
+
+        CacheEntry<V> cacheEntry = cacheEntries.get(key);
+        if (cacheEntry == null) {
+            return null;
+        }
+        if (System.nanoTime() - cacheEntry.expiryTime >= 0) {
+            cacheEntries.remove(key);
+            return null;
+        }
+        return cacheEntry.value;
+    }
+
+    /**
+     * Caches a value for the default time to live of the cache.
+     *
+     * @param key   The key of the value.
+     * @param value The value to be cached.
+     */
+    public void put(String key, V value) {
+
+        put(key, value, timeToLiveMillis);
+    }
+
+    /**
+     * Caches a value for the given time to live. The value is not cached if the time to live is not positive.
+     *
+     * @param key              The key of the value.
+     * @param value            The value to be cached.
+     * @param timeToLiveMillis The time in milliseconds for which the value is cached.
+     */
+    public synchronized void put(String key, V value, long timeToLiveMillis) {
+
+        if (timeToLiveMillis <= 0) {
+            cacheEntries.remove(key);
+            return;
+        }
+        // The entry is moved to the end of the eviction order when it is replaced.
+        cacheEntries.remove(key);
+        cacheEntries.put(key, new CacheEntry<>(value,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis)));
+    }
+
+    /**
+     * Removes a cached value.
+     *
+     * @param key The key of the value.
+     * @return The removed value, or null if no value was cached.
+     */
+    public synchronized V remove(String key) {
+
+        CacheEntry<V> cacheEntry = cacheEntries.remove(key);
+        return cacheEntry == null ? null : cacheEntry.value;
+    }
+
+    /**
+     * Gets the cached values which have not expired.
+     *
+     * @return The cached values, in eviction order.
+     */
+    public synchronized List<V> values() {
+
+        long now = System.nanoTime();
+        List<V> values = new ArrayList<>();
+        Iterator<CacheEntry<V>> iterator = cacheEntries.values().iterator();
+        while (iterator.hasNext()) {
+            CacheEntry<V> cacheEntry = iterator.next();
+            if (now - cacheEntry.expiryTime >= 0) {
+                iterator.remove();
+            } else {
+                values.add(cacheEntry.value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Removes all the cached values.
+     */
+    public synchronized void clear() {
+
+        cacheEntries.clear();
+    }
+
+    /**
+     * Gets the number of entries in the cache, including the expired entries which are not removed yet.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+
+        return cacheEntries.size();
+    }
+
+    /**
+     * A cached value and the time at which it expires.
+     *
+     * @param <V> The type of the cached value.
+     */
+    private static final class CacheEntry<V> {
+
+        private final V value;
+        private final long expiryTime;
+
+        private CacheEntry(V value, long expiryTime) {
+
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
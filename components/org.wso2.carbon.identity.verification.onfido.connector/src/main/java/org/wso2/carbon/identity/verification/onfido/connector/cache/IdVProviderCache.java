@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.extension.identity.verification.provider.model.IdVProvider;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The IdVProviderCache class caches the validated Identity Verification Providers of each tenant together with their
+ * configuration properties, so that verification requests and Onfido webhooks do not resolve the provider from the
+ * database on every call. Entries expire after a short time so that updates to a provider take effect, and are
+ * invalidated immediately when Onfido rejects the configured credentials or workflow, since that is the usual sign of
+ * a provider that was updated. The number of cached providers is bounded, with the oldest providers evicted first.
+ */
+public class IdVProviderCache {
+
+    private static final Log log = LogFactory.getLog(IdVProviderCache.class);
+    private static final int MAX_ENTRIES = 10000;
+    private static final long CACHE_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+    private static final IdVProviderCache idVProviderCacheInstance = new IdVProviderCache();
+    private final ExpiringCache<IdVProviderCacheEntry> cacheEntries = new ExpiringCache<>(MAX_ENTRIES, CACHE_TIMEOUT);
+
+    private IdVProviderCache() {
+
+    }
+
+    /**
+     * Gets the singleton instance of IdVProviderCache.
+     *
+     * @return The singleton instance of IdVProviderCache.
+     */
+    public static IdVProviderCache getInstance() {
+
+        return idVProviderCacheInstance;
+    }
+
+    /**
+     * Gets the cached Identity Verification Provider.
+     *
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param tenantId      The ID of the tenant.
+     * @return The cache entry, or null if the provider is not cached or the entry has expired.
+     */
+    public IdVProviderCacheEntry get(String idVProviderId, int tenantId) {
+
+        return cacheEntries.get(getCacheKey(idVProviderId, tenantId));
+    }
+
+    /**
+     * Caches a validated Identity Verification Provider. Only providers that are enabled and have valid configuration
+     * properties should be cached, since the validation is skipped for the cached providers.
+     *
+     * @param idVProviderId    The ID of the Identity Verification Provider.
+     * @param tenantId         The ID of the tenant.
+     * @param idVProvider      The validated Identity Verification Provider.
+     * @param configProperties The validated configuration properties of the Identity Verification Provider.
+     * @return The cache entry.
+     */
+    public IdVProviderCacheEntry put(String idVProviderId, int tenantId, IdVProvider idVProvider,
+                                     Map<String, String> configProperties) {
+
+        IdVProviderCacheEntry cacheEntry = new IdVProviderCacheEntry(idVProvider, configProperties);
+        cacheEntries.put(getCacheKey(idVProviderId, tenantId), cacheEntry);
+        return cacheEntry;
+    }
+
+    /**
+     * Removes the cached Identity Verification Provider, so that the next request resolves it again.
+     *
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param tenantId      The ID of the tenant.
+     */
+    public void invalidate(String idVProviderId, int tenantId) {
+
+        if (cacheEntries.remove(getCacheKey(idVProviderId, tenantId)) != null && log.isDebugEnabled()) {
+            log.debug("Invalidated the cached Identity Verification Provider: " + idVProviderId + " of tenant: " +
+                    tenantId);
+        }
+    }
+
+    /**
+     * Removes all the cached Identity Verification Providers.
+     */
+    public void clear() {
+
+        cacheEntries.clear();
+    }
+
+    private static String getCacheKey(String idVProviderId, int tenantId) {
+
+        return tenantId + ":" + idVProviderId;
+    }
+}
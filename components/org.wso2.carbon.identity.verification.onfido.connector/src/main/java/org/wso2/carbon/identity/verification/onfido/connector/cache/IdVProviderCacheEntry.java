@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import org.wso2.carbon.extension.identity.verification.provider.model.IdVProvider;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A validated Identity Verification Provider together with its configuration properties.
+ */
+public class IdVProviderCacheEntry {
+
+    private final IdVProvider idVProvider;
+    private final Map<String, String> configProperties;
+
+    IdVProviderCacheEntry(IdVProvider idVProvider, Map<String, String> configProperties) {
+
+        this.idVProvider = idVProvider;
+        this.configProperties = Collections.unmodifiableMap(new HashMap<>(configProperties));
+    }
+
+    public IdVProvider getIdVProvider() {
+
+        return idVProvider;
+    }
+
+    /**
+     * Gets the configuration properties of the Identity Verification Provider. The map is shared by concurrent
+     * requests, hence it cannot be modified.
+     *
+     * @return An unmodifiable map of the configuration properties.
+     */
+    public Map<String, String> getConfigProperties() {
+
+        return configProperties;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SdkTokenCache class keeps the Onfido SDK tokens issued for each applicant in memory, so that reinitiating a
+ * verification reuses a token which is still valid instead of requesting a new one from Onfido. A token is reused
+ * until a safety margin before the expiry time read from the token, so that the Onfido SDK does not receive a token
+ * which expires while the user is interacting with it. Tokens of which the expiry time cannot be read are not cached.
+ * The tokens are never persisted, and the number of cached tokens is bounded with the oldest tokens evicted first.
+ */
+public class SdkTokenCache {
+
+    private static final Log log = LogFactory.getLog(SdkTokenCache.class);
+    private static final int MAX_ENTRIES = 10000;
+    private static final long EXPIRY_SAFETY_MARGIN = TimeUnit.MINUTES.toMillis(10);
+    private static final String EXPIRY_CLAIM = "exp";
+    private static final SdkTokenCache sdkTokenCacheInstance = new SdkTokenCache();
+    // Each token is cached for its own time to live, read from the token, hence there is no default time to live.
+    private final ExpiringCache<String> cacheEntries = new ExpiringCache<>(MAX_ENTRIES, 0);
+
+    private SdkTokenCache() {
+
+    }
+
+    /**
+     * Gets the singleton instance of SdkTokenCache.
+     *
+     * @return The singleton instance of SdkTokenCache.
+     */
+    public static SdkTokenCache getInstance() {
+
+        return sdkTokenCacheInstance;
+    }
+
+    /**
+     * Gets the cached SDK token of an applicant, if it is not about to expire.
+     *
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param applicantId   The ID of the Onfido applicant.
+     * @param tenantId      The ID of the tenant.
+     * @return The SDK token, or null if no usable token is cached.
+     */
+    public String get(String idVProviderId, String applicantId, int tenantId) {
+
+        return cacheEntries.get(getCacheKey(idVProviderId, applicantId, tenantId));
+    }
+
+    /**
+     * Caches the SDK token issued for an applicant. The token is not cached if its expiry time cannot be read, or it
+     * is already within the safety margin before expiry.
+     *
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param applicantId   The ID of the Onfido applicant.
+     * @param tenantId      The ID of the tenant.
+     * @param sdkToken      The SDK token issued by Onfido.
+     */
+    public void put(String idVProviderId, String applicantId, int tenantId, String sdkToken) {
+
+        long timeToLive = getExpiryTime(sdkToken) - EXPIRY_SAFETY_MARGIN - System.currentTimeMillis();
+        if (timeToLive <= 0) {
+            return;
+        }
+        cacheEntries.put(getCacheKey(idVProviderId, applicantId, tenantId), sdkToken, timeToLive);
+    }
+
+    /**
+     * Removes the cached SDK token of an applicant.
+     *
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param applicantId   The ID of the Onfido applicant.
+     * @param tenantId      The ID of the tenant.
+     */
+    public void invalidate(String idVProviderId, String applicantId, int tenantId) {
+
+        cacheEntries.remove(getCacheKey(idVProviderId, applicantId, tenantId));
+    }
+
+    /**
+     * Removes all the cached SDK tokens.
+     */
+    public void clear() {
+
+        cacheEntries.clear();
+    }
+
+    private static String getCacheKey(String idVProviderId, String applicantId, int tenantId) {
+
+        return tenantId + ":" + idVProviderId + ":" + applicantId;
+    }
+
+    /**
+     * Reads the expiry time from the payload of the SDK token, which is a JSON Web Token.
+     *
+     * @param sdkToken The SDK token.
+     * @return The expiry time in milliseconds since the epoch, or 0 if the expiry time cannot be read.
+     */
+    private static long getExpiryTime(String sdkToken) {
+
+        String[] tokenParts = StringUtils.split(sdkToken, '.');
+        if (tokenParts == null || tokenParts.length != 3) {
+            return 0;
+        }
+        try {
+            JSONObject payload = new JSONObject(new String(Base64.getUrlDecoder().decode(tokenParts[1]),
+                    StandardCharsets.UTF_8));
+            return TimeUnit.SECONDS.toMillis(payload.optLong(EXPIRY_CLAIM));
+        } catch (IllegalArgumentException | JSONException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to read the expiry time of the Onfido SDK token. The token is not cached.", e);
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WebhookEventCache class remembers the Onfido webhook events which were processed, so that the events
+ * redelivered by Onfido are acknowledged without reading or updating the identity verification claims again.
+ * An event is identified by its workflow run, status and completion time, and is remembered for a limited time.
+ * The number of remembered events is bounded, and the oldest events are forgotten first.
+ */
+public class WebhookEventCache {
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final long CACHE_TIMEOUT = TimeUnit.HOURS.toMillis(1);
+    private static final WebhookEventCache webhookEventCacheInstance = new WebhookEventCache();
+    private final ExpiringCache<Boolean> processedEvents = new ExpiringCache<>(MAX_ENTRIES, CACHE_TIMEOUT);
+
+    private WebhookEventCache() {
+
+    }
+
+    /**
+     * Gets the singleton instance of WebhookEventCache.
+     *
+     * @return The singleton instance of WebhookEventCache.
+     */
+    public static WebhookEventCache getInstance() {
+
+        return webhookEventCacheInstance;
+    }
+
+    /**
+     * Builds the key identifying a webhook event.
+     *
+     * @param tenantId      The ID of the tenant.
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param workflowRunId The ID of the Onfido workflow run.
+     * @param status        The status of the workflow run.
+     * @param completedAt   The completion time of the workflow run.
+     * @return The key of the webhook event.
+     */
+    public static String getEventKey(int tenantId, String idVProviderId, String workflowRunId, String status,
+                                     String completedAt) {
+
+        return tenantId + ":" + idVProviderId + ":" + workflowRunId + ":" + status + ":" + completedAt;
+    }
+
+    /**
+     * Checks whether a webhook event was processed recently.
+     *
+     * @param eventKey The key of the webhook event.
+     * @return True if the event was processed.
+     */
+    public boolean isProcessed(String eventKey) {
+
+        return processedEvents.get(eventKey) != null;
+    }
+
+    /**
+     * Records that a webhook event was processed. Events must only be recorded once the claims are updated, so that
+     * the events which failed are processed again when Onfido redelivers them.
+     *
+     * @param eventKey The key of the webhook event.
+     */
+    public void markProcessed(String eventKey) {
+
+        processedEvents.put(eventKey, Boolean.TRUE);
+    }
+
+    /**
+     * Removes all the recorded webhook events.
+     */
+    public void clear() {
+
+        processedEvents.clear();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WorkflowRunStatusCache class keeps the ending statuses of the Onfido workflow runs in memory for a short time.
+ * The cache is fed by the webhook notifications and the workflow run status requests, so that completing a
+ * verification of which the workflow run has already ended does not request the status from Onfido again. Only
+ * ending statuses are cached, as defined by {@link OnfidoConstants.WorkflowRunStatus#isEndingStatus()}, and the
+ * number of cached statuses is bounded with the oldest statuses evicted first.
+ */
+public class WorkflowRunStatusCache {
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final long CACHE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    private static final WorkflowRunStatusCache workflowRunStatusCacheInstance = new WorkflowRunStatusCache();
+    private final ExpiringCache<OnfidoConstants.WorkflowRunStatus> cacheEntries =
+            new ExpiringCache<>(MAX_ENTRIES, CACHE_TIMEOUT);
+
+    private WorkflowRunStatusCache() {
+
+    }
+
+    /**
+     * Gets the singleton instance of WorkflowRunStatusCache.
+     *
+     * @return The singleton instance of WorkflowRunStatusCache.
+     */
+    public static WorkflowRunStatusCache getInstance() {
+
+        return workflowRunStatusCacheInstance;
+    }
+
+    /**
+     * Gets the cached ending status of a workflow run.
+     *
+     * @param idVProviderId The ID of the Identity Verification Provider.
+     * @param workflowRunId The ID of the Onfido workflow run.
+     * @param tenantId      The ID of the tenant.
+     * @return The ending status of the workflow run, or null if no status is cached or the cached status expired.
+     */
+    public OnfidoConstants.WorkflowRunStatus get(String idVProviderId, String workflowRunId, int tenantId) {
+
+        return cacheEntries.get(getCacheKey(idVProviderId, workflowRunId, tenantId));
+    }
+
+    /**
+     * Caches the status of a workflow run, if it is an ending status.
+     *
+     * @param idVProviderId     The ID of the Identity Verification Provider.
+     * @param workflowRunId     The ID of the Onfido workflow run.
+     * @param tenantId          The ID of the tenant.
+     * @param workflowRunStatus The status of the workflow run.
+     */
+    public void put(String idVProviderId, String workflowRunId, int tenantId,
+                    OnfidoConstants.WorkflowRunStatus workflowRunStatus) {
+
+        if (workflowRunStatus == null || !workflowRunStatus.isEndingStatus()) {
+            return;
+        }
+        cacheEntries.put(getCacheKey(idVProviderId, workflowRunId, tenantId), workflowRunStatus);
+    }
+
+    /**
+     * Removes all the cached workflow run statuses.
+     */
+    public void clear() {
+
+        cacheEntries.clear();
+    }
+
+    private static String getCacheKey(String idVProviderId, String workflowRunId, int tenantId) {
+
+        return tenantId + ":" + idVProviderId + ":" + workflowRunId;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.claim;
+
+import org.wso2.carbon.extension.identity.verification.mgt.model.IdVClaim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The identity verification claims of a user for an identity verification provider, fetched once per verification
+ * request and indexed by claim URI and by metadata key, so that the steps of the request look up claims without
+ * querying the database again.
+ */
+public final class IdVClaimIndex {
+
+    private final Map<String, IdVClaim> idVClaimsByUri = new HashMap<>();
+    private final Map<String, List<IdVClaim>> idVClaimsByMetadataKey = new HashMap<>();
+
+    /**
+     * Creates an index of the given identity verification claims.
+     *
+     * @param idVClaims The identity verification claims of the user, which may be null.
+     */
+    public IdVClaimIndex(IdVClaim[] idVClaims) {
+
+        if (idVClaims == null) {
+            return;
+        }
+        for (IdVClaim idVClaim : idVClaims) {
+            if (idVClaim == null) {
+                continue;
+            }
+            idVClaimsByUri.putIfAbsent(idVClaim.getClaimUri(), idVClaim);
+            if (idVClaim.getMetadata() == null) {
+                continue;
+            }
+            for (Map.Entry<String, Object> metadata : idVClaim.getMetadata().entrySet()) {
+                if (metadata.getValue() != null) {
+                    idVClaimsByMetadataKey.computeIfAbsent(metadata.getKey(), key -> new ArrayList<>()).add(idVClaim);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the identity verification claim of the given claim URI.
+     *
+     * @param claimUri The claim URI.
+     * @return The identity verification claim, or null if the user has no claim of the given URI.
+     */
+    public IdVClaim getIdVClaim(String claimUri) {
+
+        return idVClaimsByUri.get(claimUri);
+    }
+
+    /**
+     * Gets the identity verification claims that have a value for the given metadata key, in the order they were
+     * fetched.
+     *
+     * @param metadataKey The metadata key.
+     * @return The identity verification claims having the metadata key.
+     */
+    public List<IdVClaim> getIdVClaimsWithMetadata(String metadataKey) {
+
+        return Collections.unmodifiableList(idVClaimsByMetadataKey.getOrDefault(metadataKey,
+                Collections.emptyList()));
+    }
+}
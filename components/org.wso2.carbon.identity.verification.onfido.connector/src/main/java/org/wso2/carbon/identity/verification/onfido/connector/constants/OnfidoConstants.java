@@ -54,6 +54,21 @@ public class OnfidoConstants {
     public static final String DOB = "dob";
     public static final String DATE_OF_BIRTH = "date_of_birth";
 
+    /**
+     * Optional IdV Provider configuration properties for tuning the Onfido HTTP client.
+     */
+    public static final String MAX_CONNECTIONS = "max_connections";
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "max_connections_per_route";
+    public static final String CONNECT_TIMEOUT = "connect_timeout";
+    public static final String READ_TIMEOUT = "read_timeout";
+    public static final String CONNECTION_REQUEST_TIMEOUT = "connection_request_timeout";
+    public static final String KEEP_ALIVE_TIMEOUT = "keep_alive_timeout";
+    public static final String IDLE_CONNECTION_TIMEOUT = "idle_connection_timeout";
+    public static final String MAX_RETRIES = "max_retries";
+    public static final String RATE_LIMIT = "rate_limit";
+    public static final String RATE_LIMIT_MAX_WAIT = "rate_limit_max_wait";
+    public static final String WEBHOOK_ASYNC_PROCESSING = "webhook_async_processing";
+
     /**
      * HTTP request headers for Onfido API calls.
      */
@@ -170,7 +185,14 @@ public class OnfidoConstants {
                 "No Onfido user found associated with the provided applicant ID: %s."),
         ERROR_WORKFLOW_RUN_ID_NOT_FOUND_IN_ONFIDO("10041",
                 "No Onfido workflow run found for the provided workflow run ID: %s."),
-        ERROR_INVALID_WORKFLOW_ID("10042", "Invalid Onfido workflow ID : %s provided.");
+        ERROR_INVALID_WORKFLOW_ID("10042", "Invalid Onfido workflow ID : %s provided."),
+        ERROR_ONFIDO_UNAVAILABLE("10043", "The Onfido API at: %s is unavailable. Please try again later."),
+        ERROR_RATE_LIMIT_EXCEEDED("10044", "The rate limit of the Onfido API token is exceeded. " +
+                "Please try again later."),
+        ERROR_WEBHOOK_QUEUE_FULL("10045", "The Onfido webhook event could not be queued for processing. " +
+                "Please try again later."),
+        ERROR_CONCURRENT_REQUEST_TIMEOUT("10046", "Timed out while waiting for a concurrent request of the user " +
+                "to complete. Please try again later.");
 
         private final String code;
         private final String message;
@@ -338,7 +360,9 @@ public class OnfidoConstants {
         }
 
         /**
-         * Checks if the current status is one of the workflow run ending statuses.
+         * Checks if the current status is one of the workflow run ending statuses. These statuses carry the outcome
+         * of the verification, hence they are persisted only from the webhook notification, and the status of a
+         * workflow run which reached one of them is not requested from Onfido again.
          *
          * @return true if it is one of the ending statuses, false otherwise.
          */
@@ -32,8 +32,20 @@ import org.wso2.carbon.extension.identity.verification.mgt.IdentityVerifier;
 import org.wso2.carbon.extension.identity.verification.mgt.IdentityVerifierFactory;
 import org.wso2.carbon.identity.verification.onfido.connector.OnfidoIdentityVerifier;
 import org.wso2.carbon.identity.verification.onfido.connector.OnfidoIdentityVerifierFactory;
+import org.wso2.carbon.identity.verification.onfido.connector.web.CircuitBreakerManager;
+import org.wso2.carbon.identity.verification.onfido.connector.web.HTTPClientManager;
+import org.wso2.carbon.identity.verification.onfido.connector.web.RateLimiterManager;
+import org.wso2.carbon.identity.verification.onfido.connector.webhook.WebhookProcessor;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 /**
  * Service holder class for Identity Verifier.
  */
@@ -43,6 +55,8 @@ import org.wso2.carbon.user.core.service.RealmService;
 public class OnfidoIdVServiceComponent {
 
     private static final Log log = LogFactory.getLog(OnfidoIdVServiceComponent.class);
+    private static final String MBEAN_DOMAIN = "org.wso2.carbon.identity.verification.onfido";
+    private final List<ObjectName> registeredMBeans = new ArrayList<>();
 
     @Activate
     protected void activate(ComponentContext ctxt) {
@@ -55,6 +69,11 @@ public class OnfidoIdVServiceComponent {
             IdentityVerifier onfidoIdentityVerifier = new OnfidoIdentityVerifier();
             ctxt.getBundleContext().registerService(IdentityVerifier.class.getName(),
                     onfidoIdentityVerifier, null);
+
+            registerMBean(HTTPClientManager.getInstance(), "HTTPClientManager");
+            registerMBean(CircuitBreakerManager.getInstance(), "CircuitBreakerManager");
+            registerMBean(RateLimiterManager.getInstance(), "RateLimiterManager");
+            registerMBean(WebhookProcessor.start(), "WebhookProcessor");
             if (log.isDebugEnabled()) {
                 log.debug("OnfidoIdVService bundle activated successfully.");
             }
@@ -66,11 +85,54 @@ public class OnfidoIdVServiceComponent {
     @Deactivate
     protected void deactivate(ComponentContext ctxt) {
 
+        unregisterMBeans();
+        WebhookProcessor webhookProcessor = WebhookProcessor.getInstance();
+        if (webhookProcessor != null) {
+            webhookProcessor.shutdown();
+        }
+        HTTPClientManager.getInstance().shutdown();
         if (log.isDebugEnabled()) {
             log.debug("OnfidoIdVService bundle is deactivated.");
         }
     }
 
+    /**
+     * Registers a management bean of the connector in the platform MBean server. A failure to register is logged
+     * and does not affect the activation of the bundle.
+     *
+     * @param mBean The management bean.
+     * @param type  The type under which the bean is registered in the connector's domain.
+     */
+    private void registerMBean(Object mBean, String type) {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_DOMAIN + ":type=" + type);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(mBean, objectName);
+            registeredMBeans.add(objectName);
+        } catch (JMException e) {
+            log.warn("Error while registering the Onfido management bean: " + type, e);
+        }
+    }
+
+    private void unregisterMBeans() {
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredMBeans) {
+            try {
+                if (mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                log.warn("Error while unregistering the Onfido management bean: " + objectName, e);
+            }
+        }
+        registeredMBeans.clear();
+    }
+
     @Reference(
             name = "IdVClaimManager",
             service = org.wso2.carbon.extension.identity.verification.mgt.IdentityVerificationManager.class,
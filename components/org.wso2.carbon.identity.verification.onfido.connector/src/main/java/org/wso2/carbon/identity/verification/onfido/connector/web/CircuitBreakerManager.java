@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The CircuitBreakerManager class keeps a circuit breaker for each Onfido base URL, so that when an Onfido region
+ * degrades the calls to it fail fast instead of holding request threads and pooled connections until they time out.
+ * The circuits are shared by all tenants, since the availability of a region does not depend on the tenant.
+ */
+public class CircuitBreakerManager implements CircuitBreakerManagerMXBean {
+
+    private static volatile CircuitBreakerManager circuitBreakerManagerInstance;
+    private final Map<String, OnfidoCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private CircuitBreakerManager() {
+
+    }
+
+    /**
+     * Gets the singleton instance of CircuitBreakerManager.
+     *
+     * @return The singleton instance of CircuitBreakerManager.
+     */
+    public static CircuitBreakerManager getInstance() {
+
+        if (circuitBreakerManagerInstance == null) {
+            synchronized (CircuitBreakerManager.class) {
+                if (circuitBreakerManagerInstance == null) {
+                    circuitBreakerManagerInstance = new CircuitBreakerManager();
+                }
+            }
+        }
+        return circuitBreakerManagerInstance;
+    }
+
+    /**
+     * Gets the circuit breaker of the given Onfido base URL, creating it in the closed state on first use.
+     *
+     * @param baseUrl The Onfido base URL.
+     * @return The circuit breaker of the base URL.
+     */
+    public OnfidoCircuitBreaker getCircuitBreaker(String baseUrl) {
+
+        return circuitBreakers.computeIfAbsent(String.valueOf(baseUrl), OnfidoCircuitBreaker::new);
+    }
+
+    @Override
+    public int getOpenCircuitCount() {
+
+        int openCircuitCount = 0;
+        for (OnfidoCircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            if (circuitBreaker.getState() != OnfidoCircuitBreaker.State.CLOSED) {
+                openCircuitCount++;
+            }
+        }
+        return openCircuitCount;
+    }
+
+    @Override
+    public List<CircuitBreakerStatistics> getCircuitBreakers() {
+
+        List<CircuitBreakerStatistics> statistics = new ArrayList<>();
+        for (OnfidoCircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            statistics.add(circuitBreaker.getStatistics());
+        }
+        return statistics;
+    }
+}
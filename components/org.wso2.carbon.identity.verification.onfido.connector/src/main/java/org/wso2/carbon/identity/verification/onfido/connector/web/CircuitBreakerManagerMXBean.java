@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import java.util.List;
+
+/**
+ * Management interface exposing the state of the circuit breakers guarding the Onfido API.
+ */
+public interface CircuitBreakerManagerMXBean {
+
+    /**
+     * Gets the number of circuits that are currently open or half open.
+     *
+     * @return The number of circuits which are not closed.
+     */
+    int getOpenCircuitCount();
+
+    /**
+     * Gets the state and the recent failure rate of the circuit breaker of each Onfido base URL.
+     *
+     * @return The statistics of the circuit breakers.
+     */
+    List<CircuitBreakerStatistics> getCircuitBreakers();
+}
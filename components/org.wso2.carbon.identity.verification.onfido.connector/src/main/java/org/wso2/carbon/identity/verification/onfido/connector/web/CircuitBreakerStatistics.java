@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+/**
+ * A snapshot of the state of the circuit breaker guarding an Onfido base URL.
+ */
+public class CircuitBreakerStatistics {
+
+    private final String baseUrl;
+    private final String state;
+    private final float failureRate;
+    private final int recordedCalls;
+    private final int failedCalls;
+    private final long rejectedCalls;
+
+    public CircuitBreakerStatistics(String baseUrl, String state, float failureRate, int recordedCalls,
+                                    int failedCalls, long rejectedCalls) {
+
+        this.baseUrl = baseUrl;
+        this.state = state;
+        this.failureRate = failureRate;
+        this.recordedCalls = recordedCalls;
+        this.failedCalls = failedCalls;
+        this.rejectedCalls = rejectedCalls;
+    }
+
+    public String getBaseUrl() {
+
+        return baseUrl;
+    }
+
+    public String getState() {
+
+        return state;
+    }
+
+    /**
+     * Gets the percentage of the calls in the sliding window that failed.
+     *
+     * @return The failure rate as a percentage.
+     */
+    public float getFailureRate() {
+
+        return failureRate;
+    }
+
+    public int getRecordedCalls() {
+
+        return recordedCalls;
+    }
+
+    public int getFailedCalls() {
+
+        return failedCalls;
+    }
+
+    /**
+     * Gets the number of calls rejected without reaching Onfido since the circuit breaker was created.
+     *
+     * @return The number of rejected calls.
+     */
+    public long getRejectedCalls() {
+
+        return rejectedCalls;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+/**
+ * A snapshot of the effective settings and the connection usage of an Onfido HTTP connection pool.
+ */
+public class ConnectionPoolStatistics {
+
+    private final String poolKey;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int connectionRequestTimeout;
+    private final int keepAliveTimeout;
+    private final int idleConnectionTimeout;
+    private final int leasedConnections;
+    private final int availableConnections;
+    private final int pendingRequests;
+
+    public ConnectionPoolStatistics(String poolKey, int maxConnections, int maxConnectionsPerRoute,
+                                    int connectTimeout, int readTimeout, int connectionRequestTimeout,
+                                    int keepAliveTimeout, int idleConnectionTimeout, int leasedConnections,
+                                    int availableConnections, int pendingRequests) {
+
+        this.poolKey = poolKey;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.keepAliveTimeout = keepAliveTimeout;
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        this.leasedConnections = leasedConnections;
+        this.availableConnections = availableConnections;
+        this.pendingRequests = pendingRequests;
+    }
+
+    public String getPoolKey() {
+
+        return poolKey;
+    }
+
+    public int getMaxConnections() {
+
+        return maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+
+        return maxConnectionsPerRoute;
+    }
+
+    public int getConnectTimeout() {
+
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+
+        return readTimeout;
+    }
+
+    public int getConnectionRequestTimeout() {
+
+        return connectionRequestTimeout;
+    }
+
+    public int getKeepAliveTimeout() {
+
+        return keepAliveTimeout;
+    }
+
+    public int getIdleConnectionTimeout() {
+
+        return idleConnectionTimeout;
+    }
+
+    public int getLeasedConnections() {
+
+        return leasedConnections;
+    }
+
+    public int getAvailableConnections() {
+
+        return availableConnections;
+    }
+
+    public int getPendingRequests() {
+
+        return pendingRequests;
+    }
+}
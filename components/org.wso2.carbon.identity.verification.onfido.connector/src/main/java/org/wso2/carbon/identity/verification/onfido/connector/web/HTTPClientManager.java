@@ -18,36 +18,80 @@
 
 package org.wso2.carbon.identity.verification.onfido.connector.web;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
 
 import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.BASE_URL;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.CONNECTION_REQUEST_TIMEOUT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.CONNECT_TIMEOUT;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_CREATING_HTTP_CLIENT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.IDLE_CONNECTION_TIMEOUT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.KEEP_ALIVE_TIMEOUT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.MAX_CONNECTIONS;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.MAX_CONNECTIONS_PER_ROUTE;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.READ_TIMEOUT;
 
 /**
  * Manages HTTP client connections for the Onfido connector.
- * This class implements the singleton pattern to ensure only one instance of the HTTP client is created.
+ * This class implements the singleton pattern and keeps a registry of pooled HTTP clients keyed by tenant, Onfido
+ * base URL and pool settings, so that a burst of verifications in one tenant or region cannot starve the others of
+ * connections. The timeouts, connection limits and keep-alive settings of each pool are read from the configuration
+ * properties of the IdV Provider, and a background reaper closes expired and idle connections as well as unused pools.
  */
-public class HTTPClientManager {
+public class HTTPClientManager implements HTTPClientManagerMXBean {
 
-    private static final int HTTP_CONNECTION_TIMEOUT = 3000;
-    private static final int HTTP_READ_TIMEOUT = 3000;
-    private static final int HTTP_CONNECTION_REQUEST_TIMEOUT = 3000;
+    /**
+     * Name of the HTTP context attribute which holds the {@link System#nanoTime()} at which a request sent through a
+     * pooled HTTP client was written to its leased and connected connection.
+     */
+    static final String REQUEST_SENT_TIME = "onfido.request.sent.time";
+    private static final Log log = LogFactory.getLog(HTTPClientManager.class);
+    private static final int DEFAULT_CONNECT_TIMEOUT = 3000;
+    private static final int DEFAULT_READ_TIMEOUT = 3000;
+    private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 3000;
     private static final int DEFAULT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_KEEP_ALIVE_TIMEOUT = 30000;
+    private static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000;
+    private static final long IDLE_POOL_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+    private static final long CONNECTION_REAPER_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+    private static final String CONNECTION_REAPER_THREAD_NAME = "onfido-http-connection-reaper";
     private static volatile HTTPClientManager httpClientManagerInstance;
-    private final CloseableHttpClient httpClient;
+    private final Map<ConnectionPoolKey, ConnectionPool> connectionPools = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService connectionReaper;
 
     /**
      * Private constructor to prevent direct instantiation.
-     *
-     * @param httpClient The CloseableHttpClient instance to be managed.
      */
-    private HTTPClientManager(CloseableHttpClient httpClient) {
-        this.httpClient = httpClient;
+    private HTTPClientManager() {
+
     }
 
     /**
@@ -55,13 +99,13 @@ public class HTTPClientManager {
      * If the instance doesn't exist, it creates one.
      *
      * @return The singleton instance of HTTPClientManager.
-     * @throws OnfidoServerException If there's an error creating the HTTP client.
      */
-    public static HTTPClientManager getInstance() throws OnfidoServerException {
+    public static HTTPClientManager getInstance() {
+
         if (httpClientManagerInstance == null) {
             synchronized (HTTPClientManager.class) {
                 if (httpClientManagerInstance == null) {
-                    httpClientManagerInstance = createInstance();
+                    httpClientManagerInstance = new HTTPClientManager();
                 }
             }
         }
@@ -69,69 +113,482 @@ public class HTTPClientManager {
     }
 
     /**
-     * Creates a new instance of HTTPClientManager.
+     * Gets the pooled HTTP client of the current tenant for the Onfido base URL configured in the IdV Provider.
+     * The pool is created on first use with the settings configured in the IdV Provider. IdV Providers of the tenant
+     * with different settings for the same base URL use separate pools, so that updated settings take effect without
+     * a restart. A pool which is no longer used is closed by the reaper once it has been idle for a while.
      *
-     * @return A new instance of HTTPClientManager.
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The CloseableHttpClient instance.
      * @throws OnfidoServerException If there's an error creating the HTTP client.
      */
-    private static HTTPClientManager createInstance() throws OnfidoServerException {
+    public CloseableHttpClient getHttpClient(Map<String, String> idVConfigPropertyMap) throws OnfidoServerException {
+
+        return getConnectionPool(idVConfigPropertyMap).getHttpClient();
+    }
+
+    /**
+     * Gets the non-blocking HTTP client of the current tenant for the Onfido base URL configured in the IdV Provider.
+     * The client shares the lifecycle and the connection limits of the pooled blocking client, so it is closed
+     * together with it and never has more requests in flight than the pool permits per route.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The non-blocking HTTP client.
+     * @throws OnfidoServerException If there's an error creating the HTTP client.
+     */
+    public OnfidoAsyncHttpClient getAsyncHttpClient(Map<String, String> idVConfigPropertyMap)
+            throws OnfidoServerException {
+
         try {
-            PoolingHttpClientConnectionManager connectionManager = createPoolingConnectionManager();
-            RequestConfig config = createRequestConfig();
-            CloseableHttpClient httpClient = HttpClients.custom()
-                    .setDefaultRequestConfig(config)
-                    .setConnectionManager(connectionManager)
-                    .build();
-            return new HTTPClientManager(httpClient);
-        } catch (IOException e) {
+            return getConnectionPool(idVConfigPropertyMap).getAsyncHttpClient();
+        } catch (RuntimeException e) {
             throw new OnfidoServerException(ERROR_CREATING_HTTP_CLIENT.getCode(),
                     ERROR_CREATING_HTTP_CLIENT.getMessage(), e);
         }
     }
 
     /**
-     * Gets the managed HTTP client instance.
+     * Gets the time to wait for a response of a request sent through the non-blocking HTTP client.
      *
-     * The httpClient is initialized in the private constructor and marked as final,
-     * ensuring it's always set when an HTTPClientManager instance is created. The only way to instantiate
-     * HTTPClientManager is through the getInstance() method, which internally calls createInstance().
-     * If createInstance() fails to create a CloseableHttpClient, it throws an OnfidoServerException,
-     * and no HTTPClientManager instance is created. Thus, if an HTTPClientManager instance exists,
-     * httpClient is guaranteed to be non-null.
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The response timeout.
+     */
+    public Duration getAsyncResponseTimeout(Map<String, String> idVConfigPropertyMap) {
+
+        return Duration.ofMillis(getPositiveIntProperty(idVConfigPropertyMap, READ_TIMEOUT, DEFAULT_READ_TIMEOUT));
+    }
+
+    /**
+     * Gets the longest time a request sent through the pool of the IdV Provider waits for a connection and its
+     * response, which is the sum of the connection request, connect and read timeouts.
      *
-     * @return The CloseableHttpClient instance.
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The request timeout.
+     */
+    public Duration getRequestTimeout(Map<String, String> idVConfigPropertyMap) {
+
+        return Duration.ofMillis((long) getPositiveIntProperty(idVConfigPropertyMap, CONNECTION_REQUEST_TIMEOUT,
+                DEFAULT_CONNECTION_REQUEST_TIMEOUT) +
+                getPositiveIntProperty(idVConfigPropertyMap, CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT) +
+                getPositiveIntProperty(idVConfigPropertyMap, READ_TIMEOUT, DEFAULT_READ_TIMEOUT));
+    }
+
+    /**
+     * Closes all the pooled HTTP clients, releases their connections and stops the connection reaper.
+     */
+    public void shutdown() {
+
+        synchronized (this) {
+            if (connectionReaper != null) {
+                connectionReaper.shutdownNow();
+                connectionReaper = null;
+            }
+        }
+        for (ConnectionPoolKey poolKey : connectionPools.keySet()) {
+            ConnectionPool connectionPool = connectionPools.remove(poolKey);
+            if (connectionPool != null) {
+                connectionPool.close();
+            }
+        }
+    }
+
+    @Override
+    public int getConnectionPoolCount() {
+
+        return connectionPools.size();
+    }
+
+    @Override
+    public List<ConnectionPoolStatistics> getConnectionPools() {
+
+        List<ConnectionPoolStatistics> statistics = new ArrayList<>();
+        connectionPools.forEach((poolKey, connectionPool) ->
+                statistics.add(connectionPool.getStatistics(poolKey.name)));
+        return statistics;
+    }
+
+    private ConnectionPool getConnectionPool(Map<String, String> idVConfigPropertyMap) throws OnfidoServerException {
+
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        ConnectionPoolSettings settings = ConnectionPoolSettings.fromConfig(idVConfigPropertyMap);
+        ConnectionPoolKey poolKey = new ConnectionPoolKey(tenantId + ":" + idVConfigPropertyMap.get(BASE_URL),
+                settings);
+
+        startConnectionReaper();
+        try {
+            // The pool is marked as accessed within the compute function, so that the reaper cannot close it
+            // before it is returned.
+            return connectionPools.compute(poolKey, (key, existingPool) -> {
+                if (existingPool != null) {
+                    existingPool.markAccessed();
+                    return existingPool;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Creating Onfido HTTP connection pool for: " + key.name);
+                }
+                return createConnectionPool(settings);
+            });
+        } catch (RuntimeException e) {
+            throw new OnfidoServerException(ERROR_CREATING_HTTP_CLIENT.getCode(),
+                    ERROR_CREATING_HTTP_CLIENT.getMessage(), e);
+        }
+    }
+
+    /**
+     * Starts the background task which reaps stale connections and unused pools, if it is not running already.
+     */
+    private void startConnectionReaper() {
+
+        if (connectionReaper != null) {
+            return;
+        }
+        synchronized (this) {
+            if (connectionReaper == null) {
+                ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, CONNECTION_REAPER_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                reaper.scheduleWithFixedDelay(this::reapConnections, CONNECTION_REAPER_INTERVAL,
+                        CONNECTION_REAPER_INTERVAL, TimeUnit.MILLISECONDS);
+                connectionReaper = reaper;
+            }
+        }
+    }
+
+    /**
+     * Closes the expired and idle connections of each pool, so that connections which the Onfido servers may have
+     * already dropped are not leased. Pools which have not been used for the idle pool timeout and have no requests
+     * in flight are closed, so that tenants that go quiet and pools of outdated settings release their resources.
+     */
+    private void reapConnections() {
+
+        try {
+            long currentTime = System.currentTimeMillis();
+            for (ConnectionPoolKey poolKey : connectionPools.keySet()) {
+                ConnectionPool[] evictedPool = new ConnectionPool[1];
+                connectionPools.computeIfPresent(poolKey, (key, connectionPool) -> {
+                    if (connectionPool.isIdle(currentTime)) {
+                        evictedPool[0] = connectionPool;
+                        return null;
+                    }
+                    return connectionPool;
+                });
+                if (evictedPool[0] != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Evicting idle Onfido HTTP connection pool of: " + poolKey.name);
+                    }
+                    evictedPool[0].close();
+                }
+            }
+            for (ConnectionPool connectionPool : connectionPools.values()) {
+                connectionPool.closeStaleConnections();
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the subsequent executions of the reaper.
+            log.error("Error while reaping the Onfido HTTP connections.", e);
+        }
+    }
+
+    /**
+     * Creates a new connection pool with the given settings.
+     *
+     * @param settings Settings of the pool.
+     * @return A new connection pool.
      */
-    public CloseableHttpClient getHttpClient() throws OnfidoServerException {
-        return httpClient;
+    private static ConnectionPool createConnectionPool(ConnectionPoolSettings settings) {
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(settings.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(settings.maxConnectionsPerRoute);
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(createRequestConfig(settings))
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(createKeepAliveStrategy(settings.keepAliveTimeout))
+                .setRequestExecutor(createRequestExecutor())
+                .build();
+        return new ConnectionPool(settings, connectionManager, httpClient);
     }
 
     /**
-     * Creates a RequestConfig instance with predefined timeout settings.
+     * Creates a RequestConfig instance with the timeouts of the given settings.
      *
+     * @param settings Settings of the pool.
      * @return A configured RequestConfig instance.
      */
-    private static RequestConfig createRequestConfig() {
+    private static RequestConfig createRequestConfig(ConnectionPoolSettings settings) {
+
         return RequestConfig.custom()
-                .setConnectTimeout(HTTP_CONNECTION_TIMEOUT)
-                .setConnectionRequestTimeout(HTTP_CONNECTION_REQUEST_TIMEOUT)
-                .setSocketTimeout(HTTP_READ_TIMEOUT)
+                .setConnectTimeout(settings.connectTimeout)
+                .setConnectionRequestTimeout(settings.connectionRequestTimeout)
+                .setSocketTimeout(settings.readTimeout)
                 .setRedirectsEnabled(false)
                 .setRelativeRedirectsAllowed(false)
                 .build();
     }
 
     /**
-     * Creates a PoolingHttpClientConnectionManager with predefined connection limits.
+     * Creates a request executor which records the time at which each request is written to its connection. The
+     * executor runs only once a connection is leased from the pool and connected, so the recorded time excludes the
+     * time spent waiting for a connection.
      *
-     * @return A configured PoolingHttpClientConnectionManager instance.
-     * @throws IOException If there's an error creating the connection manager.
-     */
-    private static PoolingHttpClientConnectionManager createPoolingConnectionManager() throws IOException {
-        PoolingHttpClientConnectionManager poolingHttpClientConnectionMgr = new PoolingHttpClientConnectionManager();
-        // Increase max total connection to 20.
-        poolingHttpClientConnectionMgr.setMaxTotal(DEFAULT_MAX_CONNECTIONS);
-        // Increase default max connection per route to 20.
-        poolingHttpClientConnectionMgr.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS);
-        return poolingHttpClientConnectionMgr;
+     * @return The request executor.
+     */
+    private static HttpRequestExecutor createRequestExecutor() {
+
+        return new HttpRequestExecutor() {
+
+            @Override
+            public HttpResponse execute(HttpRequest request, HttpClientConnection connection, HttpContext context)
+                    throws IOException, HttpException {
+
+                context.setAttribute(REQUEST_SENT_TIME, System.nanoTime());
+                return super.execute(request, connection, context);
+            }
+        };
+    }
+
+    /**
+     * Creates a keep-alive strategy which honours the keep-alive timeout advertised by Onfido, bounded by the
+     * configured keep-alive timeout. Connections are otherwise kept alive for the configured timeout rather than
+     * indefinitely, as the default strategy does when the server does not advertise a timeout.
+     *
+     * @param keepAliveTimeout The maximum time in milliseconds to keep an idle connection alive.
+     * @return The keep-alive strategy.
+     */
+    private static ConnectionKeepAliveStrategy createKeepAliveStrategy(int keepAliveTimeout) {
+
+        return (response, context) -> {
+            long serverKeepAliveTimeout =
+                    DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (serverKeepAliveTimeout > 0) {
+                return Math.min(serverKeepAliveTimeout, keepAliveTimeout);
+            }
+            return keepAliveTimeout;
+        };
+    }
+
+    /**
+     * Reads a positive integer from the IdV Provider configuration properties.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param propertyName         Name of the configuration property.
+     * @param defaultValue         Value to be used when the property is not configured or invalid.
+     * @return The configured value or the default value.
+     */
+    static int getPositiveIntProperty(Map<String, String> idVConfigPropertyMap, String propertyName,
+                                      int defaultValue) {
+
+        String propertyValue = idVConfigPropertyMap.get(propertyName);
+        if (StringUtils.isBlank(propertyValue)) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(propertyValue.trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the default value.
+        }
+        log.warn("Invalid value: " + propertyValue + " configured for the Onfido property: " + propertyName +
+                ". Using the default value: " + defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * The settings of a connection pool, read from the configuration properties of the IdV Provider.
+     * Timeouts are in milliseconds.
+     */
+    private static final class ConnectionPoolSettings {
+
+        private final int maxConnections;
+        private final int maxConnectionsPerRoute;
+        private final int connectTimeout;
+        private final int readTimeout;
+        private final int connectionRequestTimeout;
+        private final int keepAliveTimeout;
+        private final int idleConnectionTimeout;
+
+        private ConnectionPoolSettings(int maxConnections, int maxConnectionsPerRoute, int connectTimeout,
+                                       int readTimeout, int connectionRequestTimeout, int keepAliveTimeout,
+                                       int idleConnectionTimeout) {
+
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            this.keepAliveTimeout = keepAliveTimeout;
+            this.idleConnectionTimeout = idleConnectionTimeout;
+        }
+
+        static ConnectionPoolSettings fromConfig(Map<String, String> idVConfigPropertyMap) {
+
+            int maxConnections =
+                    getPositiveIntProperty(idVConfigPropertyMap, MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+            return new ConnectionPoolSettings(maxConnections,
+                    getPositiveIntProperty(idVConfigPropertyMap, MAX_CONNECTIONS_PER_ROUTE, maxConnections),
+                    getPositiveIntProperty(idVConfigPropertyMap, CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT),
+                    getPositiveIntProperty(idVConfigPropertyMap, READ_TIMEOUT, DEFAULT_READ_TIMEOUT),
+                    getPositiveIntProperty(idVConfigPropertyMap, CONNECTION_REQUEST_TIMEOUT,
+                            DEFAULT_CONNECTION_REQUEST_TIMEOUT),
+                    getPositiveIntProperty(idVConfigPropertyMap, KEEP_ALIVE_TIMEOUT, DEFAULT_KEEP_ALIVE_TIMEOUT),
+                    getPositiveIntProperty(idVConfigPropertyMap, IDLE_CONNECTION_TIMEOUT,
+                            DEFAULT_IDLE_CONNECTION_TIMEOUT));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConnectionPoolSettings)) {
+                return false;
+            }
+            ConnectionPoolSettings that = (ConnectionPoolSettings) o;
+            return maxConnections == that.maxConnections && maxConnectionsPerRoute == that.maxConnectionsPerRoute &&
+                    connectTimeout == that.connectTimeout && readTimeout == that.readTimeout &&
+                    connectionRequestTimeout == that.connectionRequestTimeout &&
+                    keepAliveTimeout == that.keepAliveTimeout && idleConnectionTimeout == that.idleConnectionTimeout;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(maxConnections, maxConnectionsPerRoute, connectTimeout, readTimeout,
+                    connectionRequestTimeout, keepAliveTimeout, idleConnectionTimeout);
+        }
+    }
+
+    /**
+     * The key of a connection pool, made of the tenant and base URL it serves and the settings it was created with.
+     */
+    private static final class ConnectionPoolKey {
+
+        private final String name;
+        private final ConnectionPoolSettings settings;
+
+        private ConnectionPoolKey(String name, ConnectionPoolSettings settings) {
+
+            this.name = name;
+            this.settings = settings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConnectionPoolKey)) {
+                return false;
+            }
+            ConnectionPoolKey that = (ConnectionPoolKey) o;
+            return name.equals(that.name) && settings.equals(that.settings);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(name, settings);
+        }
+    }
+
+    /**
+     * A pooled HTTP client together with its settings, its connection manager, the lazily created non-blocking HTTP
+     * client and the last access time.
+     */
+    private static class ConnectionPool {
+
+        private final ConnectionPoolSettings settings;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final CloseableHttpClient httpClient;
+        private volatile OnfidoAsyncHttpClient asyncHttpClient;
+        private volatile long lastAccessTime;
+
+        ConnectionPool(ConnectionPoolSettings settings, PoolingHttpClientConnectionManager connectionManager,
+                       CloseableHttpClient httpClient) {
+
+            this.settings = settings;
+            this.connectionManager = connectionManager;
+            this.httpClient = httpClient;
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        CloseableHttpClient getHttpClient() {
+
+            return httpClient;
+        }
+
+        OnfidoAsyncHttpClient getAsyncHttpClient() {
+
+            if (asyncHttpClient == null) {
+                synchronized (this) {
+                    if (asyncHttpClient == null) {
+                        HttpClient httpClient = HttpClient.newBuilder()
+                                .connectTimeout(Duration.ofMillis(settings.connectTimeout))
+                                .followRedirects(HttpClient.Redirect.NEVER)
+                                .build();
+                        asyncHttpClient = new OnfidoAsyncHttpClient(httpClient,
+                                Math.min(settings.maxConnections, settings.maxConnectionsPerRoute),
+                                settings.connectionRequestTimeout);
+                    }
+                }
+            }
+            return asyncHttpClient;
+        }
+
+        void markAccessed() {
+
+            lastAccessTime = System.currentTimeMillis();
+        }
+
+        boolean isIdle(long currentTime) {
+
+            return currentTime - lastAccessTime > IDLE_POOL_TIMEOUT && !hasRequestsInFlight();
+        }
+
+        /**
+         * Checks whether a request holds or waits for a connection of the pooled client, or a permit of the
+         * non-blocking client.
+         */
+        boolean hasRequestsInFlight() {
+
+            PoolStats poolStats = connectionManager.getTotalStats();
+            if (poolStats.getLeased() > 0 || poolStats.getPending() > 0) {
+                return true;
+            }
+            OnfidoAsyncHttpClient asyncClient = asyncHttpClient;
+            return asyncClient != null && (asyncClient.getActiveRequests() > 0 || asyncClient.getWaitingRequests() > 0);
+        }
+
+        void closeStaleConnections() {
+
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(settings.idleConnectionTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        ConnectionPoolStatistics getStatistics(String poolKey) {
+
+            PoolStats poolStats = connectionManager.getTotalStats();
+            return new ConnectionPoolStatistics(poolKey, settings.maxConnections, settings.maxConnectionsPerRoute,
+                    settings.connectTimeout, settings.readTimeout, settings.connectionRequestTimeout,
+                    settings.keepAliveTimeout, settings.idleConnectionTimeout, poolStats.getLeased(),
+                    poolStats.getAvailable(), poolStats.getPending());
+        }
+
+        void close() {
+
+            if (asyncHttpClient != null) {
+                asyncHttpClient.close();
+            }
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn("Error while closing the Onfido HTTP client.", e);
+            }
+        }
     }
 }
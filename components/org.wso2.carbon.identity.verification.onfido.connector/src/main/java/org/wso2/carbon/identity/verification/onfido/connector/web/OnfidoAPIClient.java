@@ -18,21 +18,26 @@
 
 package org.wso2.carbon.identity.verification.onfido.connector.web;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.util.EntityUtils;
 import org.json.JSONObject;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
 
-import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.APPLICANTS_ENDPOINT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.APPLICANT_ID;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.BASE_URL;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_APPLICANT_ID_NOT_FOUND_IN_ONFIDO;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_BUILDING_ONFIDO_APPLICANT_UPDATE_URI;
@@ -49,7 +54,9 @@ import static org.wso2.carbon.identity.verification.onfido.connector.constants.O
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_INVALID_WORKFLOW_ID;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_UPDATING_ONFIDO_APPLICANT;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_WORKFLOW_RUN_ID_NOT_FOUND_IN_ONFIDO;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ID;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.SDK_TOKEN_ENDPOINT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.STATUS;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.WORKFLOW_ID;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.WORKFLOW_RUN_ENDPOINT;
@@ -59,6 +66,14 @@ import static org.wso2.carbon.identity.verification.onfido.connector.constants.O
  */
 public class OnfidoAPIClient {
 
+    /*
+     * Top level fields read from the responses of each Onfido endpoint. Applicant responses are small and mirror the
+     * mapped claims, hence all of their top level fields are read.
+     */
+    static final Set<String> APPLICANT_RESPONSE_FIELDS = Collections.emptySet();
+    static final Set<String> WORKFLOW_RUN_RESPONSE_FIELDS = Set.of(ID, STATUS, WORKFLOW_ID, APPLICANT_ID);
+    static final Set<String> SDK_TOKEN_RESPONSE_FIELDS = Set.of(TOKEN);
+
     /**
      * Creates an applicant in Onfido with the given verification claim data of a user.
      *
@@ -72,26 +87,11 @@ public class OnfidoAPIClient {
                                              JSONObject idvClaimsWithValues)
             throws OnfidoServerException, OnfidoClientException {
 
-        String apiToken = idVConfigPropertyMap.get(TOKEN);
-        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
-
-        try {
-            URI uri = buildUri(baseUrl, APPLICANTS_ENDPOINT);
-            HttpResponse response = OnfidoWebUtils.httpPost(apiToken, uri.toString(), idvClaimsWithValues.toString());
-
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode == HttpStatus.SC_CREATED) {
-                return getJsonObject(response);
-            } else if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
-                throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
-            } else {
-                throw new OnfidoServerException(ERROR_CREATING_ONFIDO_APPLICANT.getCode(),
-                        String.format(ERROR_CREATING_ONFIDO_APPLICANT.getMessage(), statusCode));
-            }
-        } catch (URISyntaxException e) {
-            throw new OnfidoServerException(ERROR_BUILDING_ONFIDO_APPLICANT_URI.getCode(),
-                    ERROR_BUILDING_ONFIDO_APPLICANT_URI.getMessage(), e);
-        }
+        URI uri = buildCreateApplicantUri(idVConfigPropertyMap);
+        OnfidoResponse response = OnfidoWebUtils.httpPost(idVConfigPropertyMap, uri.toString(),
+                idvClaimsWithValues.toString(), getResponseHandler(APPLICANT_RESPONSE_FIELDS));
+        validateCreateApplicantStatus(response.getStatusCode());
+        return getJsonObject(response);
     }
 
     /**
@@ -108,30 +108,11 @@ public class OnfidoAPIClient {
                                                JSONObject workflowRunRequestBody)
             throws OnfidoServerException, OnfidoClientException {
 
-        String apiToken = idVConfigPropertyMap.get(TOKEN);
-        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
-
-        try {
-            URI uri = buildUri(baseUrl, WORKFLOW_RUN_ENDPOINT);
-            HttpResponse response =
-                    OnfidoWebUtils.httpPost(apiToken, uri.toString(), workflowRunRequestBody.toString());
-
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode == HttpStatus.SC_CREATED) {
-                return getJsonObject(response);
-            } else if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
-                throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
-            } else if (statusCode == HttpStatus.SC_UNPROCESSABLE_ENTITY) {
-                throw new OnfidoClientException(ERROR_INVALID_WORKFLOW_ID.getCode(),
-                        String.format(ERROR_INVALID_WORKFLOW_ID.getMessage(), workflowRunRequestBody.get(WORKFLOW_ID)));
-            } else {
-                throw new OnfidoServerException(ERROR_CREATING_WORKFLOW_RUN.getCode(),
-                        String.format(ERROR_CREATING_WORKFLOW_RUN.getMessage(), statusCode));
-            }
-        } catch (URISyntaxException e) {
-            throw new OnfidoServerException(ERROR_BUILDING_WORKFLOW_RUN_URI.getCode(),
-                    ERROR_BUILDING_WORKFLOW_RUN_URI.getMessage(), e);
-        }
+        URI uri = buildCreateWorkflowRunUri(idVConfigPropertyMap);
+        OnfidoResponse response = OnfidoWebUtils.httpPost(idVConfigPropertyMap, uri.toString(),
+                workflowRunRequestBody.toString(), getResponseHandler(WORKFLOW_RUN_RESPONSE_FIELDS));
+        validateCreateWorkflowRunStatus(response.getStatusCode(), workflowRunRequestBody);
+        return getJsonObject(response);
     }
 
     /**
@@ -146,26 +127,12 @@ public class OnfidoAPIClient {
     public static JSONObject createSDKToken(Map<String, String> idVConfigPropertyMap, JSONObject sdkTokenRequestBody)
             throws OnfidoServerException, OnfidoClientException {
 
-        String apiToken = idVConfigPropertyMap.get(TOKEN);
-        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
-
-        try {
-            URI uri = buildUri(baseUrl, SDK_TOKEN_ENDPOINT);
-            HttpResponse response = OnfidoWebUtils.httpPost(apiToken, uri.toString(), sdkTokenRequestBody.toString());
-
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode == HttpStatus.SC_OK) {
-                return getJsonObject(response);
-            } else if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
-                throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
-            } else {
-                throw new OnfidoServerException(ERROR_GETTING_ONFIDO_SDK_TOKEN.getCode(),
-                        String.format(ERROR_GETTING_ONFIDO_SDK_TOKEN.getMessage(), statusCode));
-            }
-        } catch (URISyntaxException e) {
-            throw new OnfidoServerException(ERROR_BUILDING_ONFIDO_SDK_TOKEN_URI.getCode(),
-                    ERROR_BUILDING_ONFIDO_SDK_TOKEN_URI.getMessage(), e);
-        }
+        URI uri = buildCreateSDKTokenUri(idVConfigPropertyMap);
+        OnfidoResponse response = OnfidoRetryHandler.execute(idVConfigPropertyMap,
+                () -> OnfidoWebUtils.httpPost(idVConfigPropertyMap, uri.toString(), sdkTokenRequestBody.toString(),
+                        getResponseHandler(SDK_TOKEN_RESPONSE_FIELDS)));
+        validateCreateSDKTokenStatus(response.getStatusCode());
+        return getJsonObject(response);
     }
 
     /**
@@ -182,29 +149,12 @@ public class OnfidoAPIClient {
                                              JSONObject idvClaimsWithValues, String applicantId)
             throws OnfidoServerException, OnfidoClientException {
 
-        String apiToken = idVConfigPropertyMap.get(TOKEN);
-        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
-
-        try {
-            URI uri = buildUri(baseUrl, APPLICANTS_ENDPOINT + "/" + applicantId);
-            HttpResponse response = OnfidoWebUtils.httpPut(apiToken, uri.toString(), idvClaimsWithValues.toString());
-
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode == HttpStatus.SC_OK) {
-                return getJsonObject(response);
-            } else if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
-                throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
-            } else if (statusCode == HttpStatus.SC_NOT_FOUND) {
-                throw new OnfidoServerException(ERROR_APPLICANT_ID_NOT_FOUND_IN_ONFIDO.getCode(),
-                        String.format(ERROR_APPLICANT_ID_NOT_FOUND_IN_ONFIDO.getMessage(), applicantId));
-            } else {
-                throw new OnfidoServerException(ERROR_UPDATING_ONFIDO_APPLICANT.getCode(),
-                        String.format(ERROR_UPDATING_ONFIDO_APPLICANT.getMessage(), statusCode));
-            }
-        } catch (URISyntaxException e) {
-            throw new OnfidoServerException(ERROR_BUILDING_ONFIDO_APPLICANT_UPDATE_URI.getCode(),
-                    ERROR_BUILDING_ONFIDO_APPLICANT_UPDATE_URI.getMessage(), e);
-        }
+        URI uri = buildUpdateApplicantUri(idVConfigPropertyMap, applicantId);
+        OnfidoResponse response = OnfidoRetryHandler.execute(idVConfigPropertyMap,
+                () -> OnfidoWebUtils.httpPut(idVConfigPropertyMap, uri.toString(), idvClaimsWithValues.toString(),
+                        getResponseHandler(APPLICANT_RESPONSE_FIELDS)));
+        validateUpdateApplicantStatus(response.getStatusCode(), applicantId);
+        return getJsonObject(response);
     }
 
     /**
@@ -219,41 +169,185 @@ public class OnfidoAPIClient {
     public static JSONObject getWorkflowRunStatus(Map<String, String> idVConfigPropertyMap, String workflowRunId)
             throws OnfidoServerException, OnfidoClientException {
 
-        String apiToken = idVConfigPropertyMap.get(TOKEN);
-        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
+        URI uri = buildGetWorkflowRunUri(idVConfigPropertyMap, workflowRunId);
+        OnfidoResponse response = OnfidoRetryHandler.execute(idVConfigPropertyMap,
+                () -> OnfidoWebUtils.httpGet(idVConfigPropertyMap, uri.toString(),
+                        getResponseHandler(WORKFLOW_RUN_RESPONSE_FIELDS)));
+        validateGetWorkflowRunStatus(response.getStatusCode(), workflowRunId);
+        return getJsonObject(response);
+    }
+
+    static URI buildCreateApplicantUri(Map<String, String> idVConfigPropertyMap) throws OnfidoServerException {
 
         try {
-            URI uri = buildUri(baseUrl, WORKFLOW_RUN_ENDPOINT + "/" + workflowRunId);
-            HttpResponse response = OnfidoWebUtils.httpGet(apiToken, uri.toString());
+            return buildUri(idVConfigPropertyMap.get(BASE_URL), APPLICANTS_ENDPOINT);
+        } catch (URISyntaxException e) {
+            throw new OnfidoServerException(ERROR_BUILDING_ONFIDO_APPLICANT_URI.getCode(),
+                    ERROR_BUILDING_ONFIDO_APPLICANT_URI.getMessage(), e);
+        }
+    }
 
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode == HttpStatus.SC_OK) {
-                return getJsonObject(response);
-            } else if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
-                throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
-            } else if (statusCode == HttpStatus.SC_NOT_FOUND) {
-                throw new OnfidoServerException(ERROR_WORKFLOW_RUN_ID_NOT_FOUND_IN_ONFIDO.getCode(),
-                        String.format(ERROR_WORKFLOW_RUN_ID_NOT_FOUND_IN_ONFIDO.getMessage(), workflowRunId));
-            } else {
-                throw new OnfidoServerException(ERROR_GETTING_ONFIDO_WORKFLOW_STATUS.getCode(),
-                        String.format(ERROR_GETTING_ONFIDO_WORKFLOW_STATUS.getMessage(), statusCode));
-            }
+    static URI buildCreateWorkflowRunUri(Map<String, String> idVConfigPropertyMap) throws OnfidoServerException {
+
+        try {
+            return buildUri(idVConfigPropertyMap.get(BASE_URL), WORKFLOW_RUN_ENDPOINT);
+        } catch (URISyntaxException e) {
+            throw new OnfidoServerException(ERROR_BUILDING_WORKFLOW_RUN_URI.getCode(),
+                    ERROR_BUILDING_WORKFLOW_RUN_URI.getMessage(), e);
+        }
+    }
+
+    static URI buildCreateSDKTokenUri(Map<String, String> idVConfigPropertyMap) throws OnfidoServerException {
+
+        try {
+            return buildUri(idVConfigPropertyMap.get(BASE_URL), SDK_TOKEN_ENDPOINT);
+        } catch (URISyntaxException e) {
+            throw new OnfidoServerException(ERROR_BUILDING_ONFIDO_SDK_TOKEN_URI.getCode(),
+                    ERROR_BUILDING_ONFIDO_SDK_TOKEN_URI.getMessage(), e);
+        }
+    }
+
+    static URI buildUpdateApplicantUri(Map<String, String> idVConfigPropertyMap, String applicantId)
+            throws OnfidoServerException {
+
+        try {
+            return buildUri(idVConfigPropertyMap.get(BASE_URL), APPLICANTS_ENDPOINT + "/" + applicantId);
+        } catch (URISyntaxException e) {
+            throw new OnfidoServerException(ERROR_BUILDING_ONFIDO_APPLICANT_UPDATE_URI.getCode(),
+                    ERROR_BUILDING_ONFIDO_APPLICANT_UPDATE_URI.getMessage(), e);
+        }
+    }
+
+    static URI buildGetWorkflowRunUri(Map<String, String> idVConfigPropertyMap, String workflowRunId)
+            throws OnfidoServerException {
+
+        try {
+            return buildUri(idVConfigPropertyMap.get(BASE_URL), WORKFLOW_RUN_ENDPOINT + "/" + workflowRunId);
         } catch (URISyntaxException e) {
             throw new OnfidoServerException(ERROR_BUILDING_WORKFLOW_RUN_GET_URI.getCode(),
                     ERROR_BUILDING_WORKFLOW_RUN_GET_URI.getMessage(), e);
         }
     }
 
-    private static JSONObject getJsonObject(HttpResponse response) throws OnfidoServerException {
+    /**
+     * Maps the status code of an applicant creation response to the corresponding Onfido exception.
+     * The blocking and the asynchronous clients share these validations so that both report failures alike.
+     *
+     * @param statusCode Status code of the Onfido response.
+     * @throws OnfidoServerException If Onfido did not create the applicant.
+     * @throws OnfidoClientException If the API token is invalid.
+     */
+    static void validateCreateApplicantStatus(int statusCode) throws OnfidoServerException, OnfidoClientException {
+
+        if (statusCode == HttpStatus.SC_CREATED) {
+            return;
+        }
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
+        }
+        throw new OnfidoServerException(ERROR_CREATING_ONFIDO_APPLICANT.getCode(),
+                String.format(ERROR_CREATING_ONFIDO_APPLICANT.getMessage(), statusCode));
+    }
+
+    static void validateCreateWorkflowRunStatus(int statusCode, JSONObject workflowRunRequestBody)
+            throws OnfidoServerException, OnfidoClientException {
 
-        try {
+        if (statusCode == HttpStatus.SC_CREATED) {
+            return;
+        }
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
+        }
+        if (statusCode == HttpStatus.SC_UNPROCESSABLE_ENTITY) {
+            throw new OnfidoClientException(ERROR_INVALID_WORKFLOW_ID.getCode(),
+                    String.format(ERROR_INVALID_WORKFLOW_ID.getMessage(), workflowRunRequestBody.get(WORKFLOW_ID)));
+        }
+        throw new OnfidoServerException(ERROR_CREATING_WORKFLOW_RUN.getCode(),
+                String.format(ERROR_CREATING_WORKFLOW_RUN.getMessage(), statusCode));
+    }
+
+    static void validateCreateSDKTokenStatus(int statusCode) throws OnfidoServerException, OnfidoClientException {
+
+        if (statusCode == HttpStatus.SC_OK) {
+            return;
+        }
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
+        }
+        throw new OnfidoServerException(ERROR_GETTING_ONFIDO_SDK_TOKEN.getCode(),
+                String.format(ERROR_GETTING_ONFIDO_SDK_TOKEN.getMessage(), statusCode));
+    }
+
+    static void validateUpdateApplicantStatus(int statusCode, String applicantId)
+            throws OnfidoServerException, OnfidoClientException {
+
+        if (statusCode == HttpStatus.SC_OK) {
+            return;
+        }
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
+        }
+        if (statusCode == HttpStatus.SC_NOT_FOUND) {
+            throw new OnfidoServerException(ERROR_APPLICANT_ID_NOT_FOUND_IN_ONFIDO.getCode(),
+                    String.format(ERROR_APPLICANT_ID_NOT_FOUND_IN_ONFIDO.getMessage(), applicantId));
+        }
+        throw new OnfidoServerException(ERROR_UPDATING_ONFIDO_APPLICANT.getCode(),
+                String.format(ERROR_UPDATING_ONFIDO_APPLICANT.getMessage(), statusCode));
+    }
+
+    static void validateGetWorkflowRunStatus(int statusCode, String workflowRunId)
+            throws OnfidoServerException, OnfidoClientException {
+
+        if (statusCode == HttpStatus.SC_OK) {
+            return;
+        }
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            throw new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(), ERROR_INVALID_TOKEN.getMessage());
+        }
+        if (statusCode == HttpStatus.SC_NOT_FOUND) {
+            throw new OnfidoServerException(ERROR_WORKFLOW_RUN_ID_NOT_FOUND_IN_ONFIDO.getCode(),
+                    String.format(ERROR_WORKFLOW_RUN_ID_NOT_FOUND_IN_ONFIDO.getMessage(), workflowRunId));
+        }
+        throw new OnfidoServerException(ERROR_GETTING_ONFIDO_WORKFLOW_STATUS.getCode(),
+                String.format(ERROR_GETTING_ONFIDO_WORKFLOW_STATUS.getMessage(), statusCode));
+    }
+
+    /**
+     * Creates a handler that reads the status code and the given fields of an Onfido response directly from the
+     * connection. The body is only parsed for successful responses, since error responses are not read. The
+     * Retry-After header is kept for the responses which are retried.
+     *
+     * @param fieldNames The names of the top level fields to be extracted from the response body.
+     * @return The response handler.
+     */
+    private static ResponseHandler<OnfidoResponse> getResponseHandler(Set<String> fieldNames) {
+
+        return response -> {
+            int statusCode = response.getStatusLine().getStatusCode();
             HttpEntity entity = response.getEntity();
-            String jsonResponse = EntityUtils.toString(entity);
-            return new JSONObject(jsonResponse);
-        } catch (IOException e) {
+            if (OnfidoRetryHandler.isRetryable(statusCode)) {
+                Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+                return new OnfidoResponse(statusCode, new JSONObject(),
+                        retryAfter != null ? retryAfter.getValue() : null);
+            }
+            if (statusCode / 100 != 2 || entity == null) {
+                return new OnfidoResponse(statusCode, new JSONObject());
+            }
+            try (InputStream content = entity.getContent()) {
+                return new OnfidoResponse(statusCode, OnfidoResponseParser.parse(content, fieldNames));
+            } catch (JsonProcessingException e) {
+                return new OnfidoResponse(statusCode, null);
+            }
+        };
+    }
+
+    private static JSONObject getJsonObject(OnfidoResponse response) throws OnfidoServerException {
+
+        if (response.getBody() == null) {
             throw new OnfidoServerException(ERROR_CREATING_RESPONSE.getCode(),
                     ERROR_CREATING_RESPONSE.getMessage());
         }
+        return response.getBody();
     }
 
     /**
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.json.JSONObject;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_CREATING_RESPONSE;
+
+/**
+ * Non-blocking counterpart of {@link OnfidoAPIClient}. Each method returns as soon as the request is dispatched and
+ * the returned future completes with the same result as the blocking method, or exceptionally with the same
+ * {@link OnfidoClientException} or {@link OnfidoServerException}. Cancelling a returned future aborts the request.
+ * Like the blocking client, the idempotent calls are retried by the {@link OnfidoRetryHandler}.
+ */
+public class OnfidoAsyncAPIClient {
+
+    private OnfidoAsyncAPIClient() {
+
+    }
+
+    /**
+     * Creates an applicant in Onfido with the given verification claim data of a user.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param idvClaimsWithValues  A JSONObject containing the user's claim data to be sent to Onfido.
+     * @return A future of the created applicant's details as returned by Onfido.
+     */
+    public static CompletableFuture<JSONObject> createApplicant(Map<String, String> idVConfigPropertyMap,
+                                                                JSONObject idvClaimsWithValues) {
+
+        return execute(() -> OnfidoAPIClient.buildCreateApplicantUri(idVConfigPropertyMap),
+                uri -> OnfidoAsyncWebUtils.httpPost(idVConfigPropertyMap, uri, idvClaimsWithValues.toString()),
+                OnfidoAPIClient::validateCreateApplicantStatus, OnfidoAPIClient.APPLICANT_RESPONSE_FIELDS);
+    }
+
+    /**
+     * Creates a workflow run in Onfido for a specific applicant.
+     *
+     * @param idVConfigPropertyMap   The map containing the configuration properties of the IdV Provider.
+     * @param workflowRunRequestBody A JSONObject containing the workflow ID and applicant ID.
+     * @return A future of the details of the created workflow run as returned by Onfido.
+     */
+    public static CompletableFuture<JSONObject> createWorkflowRun(Map<String, String> idVConfigPropertyMap,
+                                                                  JSONObject workflowRunRequestBody) {
+
+        return execute(() -> OnfidoAPIClient.buildCreateWorkflowRunUri(idVConfigPropertyMap),
+                uri -> OnfidoAsyncWebUtils.httpPost(idVConfigPropertyMap, uri, workflowRunRequestBody.toString()),
+                statusCode -> OnfidoAPIClient.validateCreateWorkflowRunStatus(statusCode, workflowRunRequestBody),
+                OnfidoAPIClient.WORKFLOW_RUN_RESPONSE_FIELDS);
+    }
+
+    /**
+     * Retrieves a SDK token from Onfido for an already created applicant.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param sdkTokenRequestBody  A JSONObject containing the necessary data to request an SDK token.
+     * @return A future of the SDK token as returned by Onfido.
+     */
+    public static CompletableFuture<JSONObject> createSDKToken(Map<String, String> idVConfigPropertyMap,
+                                                               JSONObject sdkTokenRequestBody) {
+
+        return execute(() -> OnfidoAPIClient.buildCreateSDKTokenUri(idVConfigPropertyMap),
+                uri -> OnfidoRetryHandler.executeAsync(idVConfigPropertyMap,
+                        () -> OnfidoAsyncWebUtils.httpPost(idVConfigPropertyMap, uri, sdkTokenRequestBody.toString())),
+                OnfidoAPIClient::validateCreateSDKTokenStatus, OnfidoAPIClient.SDK_TOKEN_RESPONSE_FIELDS);
+    }
+
+    /**
+     * Updates an applicant in Onfido with the provided verification claim data of a user.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param idvClaimsWithValues  A JSONObject containing the user's claim data to be updated in Onfido.
+     * @param applicantId          The unique identifier of the applicant to be updated in Onfido.
+     * @return A future of the response from Onfido after the update request.
+     */
+    public static CompletableFuture<JSONObject> updateApplicant(Map<String, String> idVConfigPropertyMap,
+                                                                JSONObject idvClaimsWithValues, String applicantId) {
+
+        return execute(() -> OnfidoAPIClient.buildUpdateApplicantUri(idVConfigPropertyMap, applicantId),
+                uri -> OnfidoRetryHandler.executeAsync(idVConfigPropertyMap,
+                        () -> OnfidoAsyncWebUtils.httpPut(idVConfigPropertyMap, uri, idvClaimsWithValues.toString())),
+                statusCode -> OnfidoAPIClient.validateUpdateApplicantStatus(statusCode, applicantId),
+                OnfidoAPIClient.APPLICANT_RESPONSE_FIELDS);
+    }
+
+    /**
+     * Retrieves the status of a workflow run in Onfido.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param workflowRunId        The ID of the workflow run whose status is to be retrieved.
+     * @return A future of the workflow run as returned by Onfido.
+     */
+    public static CompletableFuture<JSONObject> getWorkflowRunStatus(Map<String, String> idVConfigPropertyMap,
+                                                                     String workflowRunId) {
+
+        return execute(() -> OnfidoAPIClient.buildGetWorkflowRunUri(idVConfigPropertyMap, workflowRunId),
+                uri -> OnfidoRetryHandler.executeAsync(idVConfigPropertyMap,
+                        () -> OnfidoAsyncWebUtils.httpGet(idVConfigPropertyMap, uri)),
+                statusCode -> OnfidoAPIClient.validateGetWorkflowRunStatus(statusCode, workflowRunId),
+                OnfidoAPIClient.WORKFLOW_RUN_RESPONSE_FIELDS);
+    }
+
+    private static CompletableFuture<JSONObject> execute(
+            URISupplier uriSupplier, Function<URI, CompletableFuture<HttpResponse<byte[]>>> exchangeFunction,
+            StatusValidator statusValidator, Set<String> responseFields) {
+
+        URI uri;
+        try {
+            uri = uriSupplier.get();
+        } catch (OnfidoServerException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<HttpResponse<byte[]>> exchange = exchangeFunction.apply(uri);
+        CompletableFuture<JSONObject> result = exchange.thenApply(response -> {
+            try {
+                statusValidator.validate(response.statusCode());
+            } catch (OnfidoServerException | OnfidoClientException e) {
+                throw new CompletionException(e);
+            }
+            try {
+                return OnfidoResponseParser.parse(response.body(), responseFields);
+            } catch (IOException e) {
+                throw new CompletionException(new OnfidoServerException(ERROR_CREATING_RESPONSE.getCode(),
+                        ERROR_CREATING_RESPONSE.getMessage(), e));
+            }
+        });
+        return OnfidoAsyncWebUtils.propagateCancellation(result, exchange);
+    }
+
+    /**
+     * Supplies the URI of an Onfido endpoint.
+     */
+    @FunctionalInterface
+    private interface URISupplier {
+
+        URI get() throws OnfidoServerException;
+    }
+
+    /**
+     * Validates the status code of an Onfido response.
+     */
+    @FunctionalInterface
+    private interface StatusValidator {
+
+        void validate(int statusCode) throws OnfidoServerException, OnfidoClientException;
+    }
+}
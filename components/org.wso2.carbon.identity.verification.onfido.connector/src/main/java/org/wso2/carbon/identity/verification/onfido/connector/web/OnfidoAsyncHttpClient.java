@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import java.net.http.HttpClient;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking HTTP client of a connection pool, which limits its requests in flight to the number of connections the
+ * pool permits per route. This keeps the non-blocking client within the connection limits of the tenant and base URL,
+ * as the pooled blocking client is. A request that finds no permit available waits without holding a thread, for at
+ * most the connection request timeout of the pool, and the permits are handed to the waiting requests in order.
+ */
+public class OnfidoAsyncHttpClient {
+
+    private final HttpClient httpClient;
+    private final int maxConcurrentRequests;
+    private final long permitTimeoutMillis;
+    private final Deque<CompletableFuture<Void>> waitingRequests = new ArrayDeque<>();
+    private int activeRequests;
+
+    OnfidoAsyncHttpClient(HttpClient httpClient, int maxConcurrentRequests, long permitTimeoutMillis) {
+
+        this.httpClient = httpClient;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.permitTimeoutMillis = permitTimeoutMillis;
+    }
+
+    public HttpClient getHttpClient() {
+
+        return httpClient;
+    }
+
+    /**
+     * Acquires a permit to send a request. A request which receives a permit must return it through
+     * {@link #releasePermit()} once its response is received.
+     *
+     * @return A future which completes once the permit is acquired, or completes exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if no permit is available within the connection request timeout.
+     */
+    public CompletableFuture<Void> acquirePermit() {
+
+        CompletableFuture<Void> permit;
+        synchronized (this) {
+            if (activeRequests < maxConcurrentRequests) {
+                activeRequests++;
+                return CompletableFuture.completedFuture(null);
+            }
+            permit = new CompletableFuture<>();
+            waitingRequests.add(permit);
+        }
+        permit.orTimeout(permitTimeoutMillis, TimeUnit.MILLISECONDS).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                removeWaitingRequest(permit);
+            }
+        });
+        return permit;
+    }
+
+    /**
+     * Returns a permit, handing it to the next waiting request if there is any. The waiting request is completed
+     * outside the lock, since completing it sends the request.
+     */
+    public void releasePermit() {
+
+        while (true) {
+            CompletableFuture<Void> waitingRequest;
+            synchronized (this) {
+                waitingRequest = waitingRequests.poll();
+                if (waitingRequest == null) {
+                    activeRequests--;
+                    return;
+                }
+            }
+            // A request which timed out or was cancelled while waiting does not take the permit.
+            if (waitingRequest.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests in flight.
+     *
+     * @return The number of requests holding a permit.
+     */
+    public synchronized int getActiveRequests() {
+
+        return activeRequests;
+    }
+
+    /**
+     * Gets the number of requests waiting for a permit.
+     *
+     * @return The number of waiting requests.
+     */
+    public synchronized int getWaitingRequests() {
+
+        return waitingRequests.size();
+    }
+
+    void close() {
+
+        httpClient.shutdown();
+    }
+
+    private synchronized void removeWaitingRequest(CompletableFuture<Void> permit) {
+
+        waitingRequests.remove(permit);
+    }
+}
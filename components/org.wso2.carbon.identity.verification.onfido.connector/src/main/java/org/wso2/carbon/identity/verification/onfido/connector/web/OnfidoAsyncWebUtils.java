@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.apache.http.HttpHeaders;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoException;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.APPLICATION_JSON;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.BASE_URL;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDENTITY_VERIFICATION;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_INVALID_BASE_URL;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_ONFIDO_UNAVAILABLE;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_RATE_LIMIT_EXCEEDED;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN_HEADER;
+
+/**
+ * The OnfidoAsyncWebUtils class contains the non-blocking counterparts of the HTTP helper functions in
+ * {@link OnfidoWebUtils}. The returned futures complete exceptionally with an {@link OnfidoClientException} or
+ * an {@link OnfidoServerException} mapped the same way as the blocking helpers, and both share the circuit breaker
+ * of the base URL.
+ */
+public class OnfidoAsyncWebUtils {
+
+    private OnfidoAsyncWebUtils() {
+
+    }
+
+    /**
+     * Send an HTTP POST request without blocking the calling thread.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param requestURI           The URI to which the request should be sent.
+     * @param requestBody          The JSON body to be sent through the request.
+     * @return A future of the response received from the HTTP call.
+     */
+    public static CompletableFuture<HttpResponse<byte[]>> httpPost(Map<String, String> idVConfigPropertyMap,
+                                                                   URI requestURI, String requestBody) {
+
+        HttpRequest request = buildRequest(idVConfigPropertyMap, requestURI)
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody, StandardCharsets.UTF_8))
+                .build();
+        return send(idVConfigPropertyMap, request);
+    }
+
+    /**
+     * Send an HTTP PUT request without blocking the calling thread.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param requestURI           The URI to which the request should be sent.
+     * @param requestBody          The JSON body to be sent through the request.
+     * @return A future of the response received from the HTTP call.
+     */
+    public static CompletableFuture<HttpResponse<byte[]>> httpPut(Map<String, String> idVConfigPropertyMap,
+                                                                  URI requestURI, String requestBody) {
+
+        HttpRequest request = buildRequest(idVConfigPropertyMap, requestURI)
+                .PUT(HttpRequest.BodyPublishers.ofString(requestBody, StandardCharsets.UTF_8))
+                .build();
+        return send(idVConfigPropertyMap, request);
+    }
+
+    /**
+     * Send an HTTP GET request without blocking the calling thread.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param requestURI           The URI to which the request should be sent.
+     * @return A future of the response received from the HTTP call.
+     */
+    public static CompletableFuture<HttpResponse<byte[]>> httpGet(Map<String, String> idVConfigPropertyMap,
+                                                                  URI requestURI) {
+
+        HttpRequest request = buildRequest(idVConfigPropertyMap, requestURI).GET().build();
+        return send(idVConfigPropertyMap, request);
+    }
+
+    /**
+     * Makes the cancellation of a dependent future cancel the future it was derived from, since cancelling a
+     * {@link CompletableFuture} does not propagate to the stages it depends on. Cancelling the future of an
+     * exchange aborts the underlying HTTP request.
+     *
+     * @param dependent The future derived from the source future.
+     * @param source    The future to be cancelled together with the dependent future.
+     * @param <T>       Result type of the dependent future.
+     * @return The dependent future.
+     */
+    static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent,
+                                                          CompletableFuture<?> source) {
+
+        dependent.whenComplete((result, throwable) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    private static HttpRequest.Builder buildRequest(Map<String, String> idVConfigPropertyMap, URI requestURI) {
+
+        return HttpRequest.newBuilder(requestURI)
+                .timeout(HTTPClientManager.getInstance().getAsyncResponseTimeout(idVConfigPropertyMap))
+                .header(HttpHeaders.AUTHORIZATION, TOKEN_HEADER + idVConfigPropertyMap.get(TOKEN))
+                .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON);
+    }
+
+    /**
+     * Sends the request unless the circuit of the base URL is open. The circuit is checked before a permit of the
+     * rate limiter of the API token is reserved, so that calls rejected by the circuit do not use up the rate limit.
+     */
+    private static CompletableFuture<HttpResponse<byte[]>> send(Map<String, String> idVConfigPropertyMap,
+                                                                HttpRequest request) {
+
+        OnfidoAsyncHttpClient client;
+        OnfidoRateLimiter rateLimiter;
+        try {
+            client = HTTPClientManager.getInstance().getAsyncHttpClient(idVConfigPropertyMap);
+            rateLimiter = RateLimiterManager.getInstance().getRateLimiter(idVConfigPropertyMap);
+        } catch (OnfidoServerException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
+        OnfidoCircuitBreaker circuitBreaker = CircuitBreakerManager.getInstance().getCircuitBreaker(baseUrl);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(createUnavailableException(baseUrl));
+        }
+
+        long waitNanos = rateLimiter.reserve();
+        if (waitNanos < 0) {
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(new OnfidoServerException(ERROR_RATE_LIMIT_EXCEEDED.getCode(),
+                    ERROR_RATE_LIMIT_EXCEEDED.getMessage()));
+        }
+        if (waitNanos == 0) {
+            return dispatch(client, circuitBreaker, request);
+        }
+
+        // The call waits for its permit on the scheduler instead of holding a thread. The permission is not held
+        // while the call waits, as it may be one of the few probe calls let through by a half-open circuit.
+        circuitBreaker.releasePermission();
+        CompletableFuture<HttpResponse<byte[]>> response = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            rateLimiter.onWaitCompleted();
+            if (response.isDone()) {
+                // The request was cancelled while it waited for the rate limiter.
+                return;
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                response.completeExceptionally(createUnavailableException(baseUrl));
+                return;
+            }
+            CompletableFuture<HttpResponse<byte[]>> exchange = dispatch(client, circuitBreaker, request);
+            exchange.whenComplete((httpResponse, throwable) -> {
+                if (throwable == null) {
+                    response.complete(httpResponse);
+                } else {
+                    response.completeExceptionally(throwable);
+                }
+            });
+            propagateCancellation(response, exchange);
+        });
+        return response;
+    }
+
+    /**
+     * Sends the request once a permit of the non-blocking client is available, and returns the permit when the
+     * response is received. The permission of the circuit breaker is released if the request is not sent.
+     */
+    private static CompletableFuture<HttpResponse<byte[]>> dispatch(OnfidoAsyncHttpClient client,
+                                                                    OnfidoCircuitBreaker circuitBreaker,
+                                                                    HttpRequest request) {
+
+        CompletableFuture<Void> permit = client.acquirePermit();
+        CompletableFuture<HttpResponse<byte[]>> response = new CompletableFuture<>();
+        permit.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                circuitBreaker.releasePermission();
+                response.completeExceptionally(toOnfidoException(throwable));
+                return;
+            }
+            if (response.isDone()) {
+                // The request was cancelled while it waited for the permit.
+                client.releasePermit();
+                circuitBreaker.releasePermission();
+                return;
+            }
+            CompletableFuture<HttpResponse<byte[]>> exchange =
+                    sendRequest(client.getHttpClient(), circuitBreaker, request);
+            exchange.whenComplete((httpResponse, exchangeThrowable) -> {
+                client.releasePermit();
+                if (exchangeThrowable == null) {
+                    response.complete(httpResponse);
+                } else {
+                    response.completeExceptionally(exchangeThrowable);
+                }
+            });
+            propagateCancellation(response, exchange);
+        });
+        return propagateCancellation(response, permit);
+    }
+
+    private static CompletableFuture<HttpResponse<byte[]>> sendRequest(HttpClient client,
+                                                                       OnfidoCircuitBreaker circuitBreaker,
+                                                                       HttpRequest request) {
+
+        long startTime = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<HttpResponse<byte[]>> response = new CompletableFuture<>();
+        exchange.whenComplete((httpResponse, throwable) -> {
+            if (exchange.isCancelled()) {
+                circuitBreaker.releasePermission();
+            } else if (throwable == null) {
+                circuitBreaker.onResponse(httpResponse.statusCode(), System.nanoTime() - startTime);
+            } else {
+                circuitBreaker.onError();
+            }
+            if (throwable == null) {
+                response.complete(httpResponse);
+            } else {
+                response.completeExceptionally(toOnfidoException(throwable));
+            }
+        });
+        return propagateCancellation(response, exchange);
+    }
+
+    private static OnfidoServerException createUnavailableException(String baseUrl) {
+
+        return new OnfidoServerException(ERROR_ONFIDO_UNAVAILABLE.getCode(),
+                String.format(ERROR_ONFIDO_UNAVAILABLE.getMessage(), baseUrl));
+    }
+
+    private static Throwable toOnfidoException(Throwable throwable) {
+
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() : throwable;
+        if (cause instanceof OnfidoException) {
+            return cause;
+        }
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof UnknownHostException || current instanceof UnresolvedAddressException) {
+                return new OnfidoClientException(ERROR_INVALID_BASE_URL.getCode(),
+                        ERROR_INVALID_BASE_URL.getMessage(), cause);
+            }
+        }
+        return new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                ERROR_IDENTITY_VERIFICATION.getMessage(), cause);
+    }
+}
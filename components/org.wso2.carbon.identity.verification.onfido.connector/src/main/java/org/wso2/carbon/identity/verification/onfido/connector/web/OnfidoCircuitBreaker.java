@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker guarding the calls to an Onfido base URL. The outcomes of the recent calls are kept in a sliding
+ * window, where server errors, calls without a response and calls slower than the slow call threshold count as
+ * failures. Once the failure rate crosses the threshold the circuit opens and calls are rejected without reaching
+ * Onfido. After the open duration, a limited number of probe calls are permitted, and the circuit closes again if
+ * they all succeed or reopens if any of them fails.
+ */
+public class OnfidoCircuitBreaker {
+
+    private static final Log log = LogFactory.getLog(OnfidoCircuitBreaker.class);
+    private static final int SLIDING_WINDOW_SIZE = 20;
+    private static final int MINIMUM_NUMBER_OF_CALLS = 10;
+    private static final int FAILURE_RATE_THRESHOLD = 50;
+    private static final long SLOW_CALL_DURATION_THRESHOLD = TimeUnit.SECONDS.toNanos(2);
+    private static final long OPEN_STATE_DURATION = TimeUnit.SECONDS.toNanos(30);
+    private static final int PERMITTED_CALLS_IN_HALF_OPEN_STATE = 3;
+
+    /**
+     * States of the circuit.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String baseUrl;
+    private final boolean[] failedCallWindow = new boolean[SLIDING_WINDOW_SIZE];
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+    private State state = State.CLOSED;
+    private long openedTime;
+    private int permittedProbeCalls;
+    private int successfulProbeCalls;
+    private long rejectedCalls;
+
+    OnfidoCircuitBreaker(String baseUrl) {
+
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Checks whether a call to Onfido is permitted. A permitted call must report its outcome through
+     * {@link #onResponse(int, long)}, {@link #onError()} or {@link #releasePermission()}.
+     *
+     * @return True if the call is permitted, false if the circuit is open.
+     */
+    public synchronized boolean tryAcquirePermission() {
+
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedTime < OPEN_STATE_DURATION) {
+                rejectedCalls++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (permittedProbeCalls >= PERMITTED_CALLS_IN_HALF_OPEN_STATE) {
+                rejectedCalls++;
+                return false;
+            }
+            permittedProbeCalls++;
+        }
+        return true;
+    }
+
+    /**
+     * Records a call that received a response from Onfido.
+     *
+     * @param statusCode    The status code of the response.
+     * @param durationNanos The duration of the call in nanoseconds.
+     */
+    public void onResponse(int statusCode, long durationNanos) {
+
+        recordOutcome(statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR ||
+                durationNanos > SLOW_CALL_DURATION_THRESHOLD);
+    }
+
+    /**
+     * Records a call that failed without a response from Onfido, such as on a connection or read timeout.
+     */
+    public void onError() {
+
+        recordOutcome(true);
+    }
+
+    /**
+     * Releases the permission of a call which was not sent, or was cancelled before its outcome was known.
+     */
+    public synchronized void releasePermission() {
+
+        if (state == State.HALF_OPEN && permittedProbeCalls > successfulProbeCalls) {
+            permittedProbeCalls--;
+        }
+    }
+
+    /**
+     * Gets a snapshot of the state of the circuit.
+     *
+     * @return The statistics of the circuit breaker.
+     */
+    public synchronized CircuitBreakerStatistics getStatistics() {
+
+        float failureRate = recordedCalls == 0 ? 0 : failedCalls * 100f / recordedCalls;
+        return new CircuitBreakerStatistics(baseUrl, state.name(), failureRate, recordedCalls, failedCalls,
+                rejectedCalls);
+    }
+
+    public synchronized State getState() {
+
+        return state;
+    }
+
+    private synchronized void recordOutcome(boolean failed) {
+
+        switch (state) {
+            case CLOSED:
+                if (recordedCalls == SLIDING_WINDOW_SIZE && failedCallWindow[windowIndex]) {
+                    failedCalls--;
+                }
+                failedCallWindow[windowIndex] = failed;
+                windowIndex = (windowIndex + 1) % SLIDING_WINDOW_SIZE;
+                recordedCalls = Math.min(recordedCalls + 1, SLIDING_WINDOW_SIZE);
+                if (failed) {
+                    failedCalls++;
+                }
+                if (recordedCalls >= MINIMUM_NUMBER_OF_CALLS &&
+                        failedCalls * 100 >= FAILURE_RATE_THRESHOLD * recordedCalls) {
+                    log.warn("Opening the circuit to the Onfido API at: " + baseUrl + " since " + failedCalls +
+                            " of the last " + recordedCalls + " calls failed.");
+                    transitionTo(State.OPEN);
+                }
+                break;
+            case HALF_OPEN:
+                if (failed) {
+                    log.warn("Reopening the circuit to the Onfido API at: " + baseUrl + " since a probe call failed.");
+                    transitionTo(State.OPEN);
+                } else if (++successfulProbeCalls >= PERMITTED_CALLS_IN_HALF_OPEN_STATE) {
+                    log.info("Closing the circuit to the Onfido API at: " + baseUrl + " since the probe calls " +
+                            "succeeded.");
+                    transitionTo(State.CLOSED);
+                }
+                break;
+            default:
+                // Outcomes of the calls permitted before the circuit opened are not recorded.
+                break;
+        }
+    }
+
+    private void transitionTo(State newState) {
+
+        state = newState;
+        permittedProbeCalls = 0;
+        successfulProbeCalls = 0;
+        if (newState == State.OPEN) {
+            openedTime = System.nanoTime();
+        }
+        if (newState == State.CLOSED) {
+            windowIndex = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
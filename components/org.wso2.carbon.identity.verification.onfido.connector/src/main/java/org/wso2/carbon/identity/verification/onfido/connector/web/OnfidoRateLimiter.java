@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDENTITY_VERIFICATION;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_RATE_LIMIT_EXCEEDED;
+
+/**
+ * Token bucket limiting the rate of the calls made with an Onfido API token. The bucket holds up to a tenth of the
+ * calls permitted per minute, so that short bursts are sent immediately. A call that finds the bucket empty reserves
+ * the next token and waits for it, so that waiting calls are served in order. A call is rejected only if it would
+ * have to wait longer than the maximum wait time.
+ */
+public class OnfidoRateLimiter {
+
+    private final String key;
+    private final int permitsPerMinute;
+    private final long maxWaitNanos;
+    private final double capacity;
+    private final double permitsPerNano;
+    private double availablePermits;
+    private long lastRefillTime;
+    private int queuedCalls;
+    private long delayedCalls;
+    private long rejectedCalls;
+    private long totalWaitNanos;
+    private long longestWaitNanos;
+
+    OnfidoRateLimiter(String key, int permitsPerMinute, long maxWaitMillis) {
+
+        this.key = key;
+        this.permitsPerMinute = permitsPerMinute;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.capacity = Math.max(1, permitsPerMinute / 10);
+        this.permitsPerNano = (double) permitsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.availablePermits = capacity;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * Acquires a permit, blocking the calling thread until the permit is available.
+     *
+     * @throws OnfidoServerException If the permit is not available within the maximum wait time, or the thread is
+     *                               interrupted while waiting.
+     */
+    public void acquire() throws OnfidoServerException {
+
+        long waitNanos = reserve();
+        if (waitNanos < 0) {
+            throw new OnfidoServerException(ERROR_RATE_LIMIT_EXCEEDED.getCode(),
+                    ERROR_RATE_LIMIT_EXCEEDED.getMessage());
+        }
+        awaitPermit(waitNanos);
+    }
+
+    /**
+     * Waits for a permit reserved through {@link #reserve()}, blocking the calling thread.
+     *
+     * @param waitNanos The time in nanoseconds to wait, as returned when the permit was reserved.
+     * @throws OnfidoServerException If the thread is interrupted while waiting.
+     */
+    public void awaitPermit(long waitNanos) throws OnfidoServerException {
+
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                    ERROR_IDENTITY_VERIFICATION.getMessage(), e);
+        } finally {
+            onWaitCompleted();
+        }
+    }
+
+    /**
+     * Reserves a permit without blocking. A caller which receives a positive wait time must call
+     * {@link #onWaitCompleted()} once it has waited.
+     *
+     * @return The time in nanoseconds to wait before the call, or -1 if the call must be rejected.
+     */
+    public synchronized long reserve() {
+
+        long now = System.nanoTime();
+        availablePermits = Math.min(capacity, availablePermits + (now - lastRefillTime) * permitsPerNano);
+        lastRefillTime = now;
+        availablePermits--;
+        if (availablePermits >= 0) {
+            return 0;
+        }
+
+        long waitNanos = (long) Math.ceil(-availablePermits / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            availablePermits++;
+            rejectedCalls++;
+            return -1;
+        }
+        queuedCalls++;
+        delayedCalls++;
+        totalWaitNanos += waitNanos;
+        longestWaitNanos = Math.max(longestWaitNanos, waitNanos);
+        return waitNanos;
+    }
+
+    /**
+     * Records that a call which had to wait for its permit has stopped waiting.
+     */
+    public synchronized void onWaitCompleted() {
+
+        queuedCalls--;
+    }
+
+    /**
+     * Checks whether the limiter was created with the given settings.
+     *
+     * @param permitsPerMinute The number of calls permitted per minute.
+     * @param maxWaitMillis    The maximum time in milliseconds a call waits for a permit.
+     * @return True if the settings are the same.
+     */
+    boolean hasSettings(int permitsPerMinute, long maxWaitMillis) {
+
+        return this.permitsPerMinute == permitsPerMinute &&
+                this.maxWaitNanos == TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * Gets a snapshot of the usage of the rate limiter.
+     *
+     * @return The statistics of the rate limiter.
+     */
+    public synchronized RateLimiterStatistics getStatistics() {
+
+        long averageWaitMillis = delayedCalls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / delayedCalls);
+        return new RateLimiterStatistics(key, permitsPerMinute, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos),
+                queuedCalls, delayedCalls, rejectedCalls, averageWaitMillis,
+                TimeUnit.NANOSECONDS.toMillis(longestWaitNanos));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.json.JSONObject;
+
+/**
+ * Holds the parts of an Onfido API response that are read before the connection is released to the pool.
+ */
+public class OnfidoResponse {
+
+    private final int statusCode;
+    private final JSONObject body;
+    private final String retryAfter;
+
+    /**
+     * Creates an Onfido response.
+     *
+     * @param statusCode The HTTP status code of the response.
+     * @param body       The fields extracted from the response body, or null if the body could not be parsed.
+     */
+    public OnfidoResponse(int statusCode, JSONObject body) {
+
+        this(statusCode, body, null);
+    }
+
+    /**
+     * Creates an Onfido response of a failed call which Onfido asked to retry later.
+     *
+     * @param statusCode The HTTP status code of the response.
+     * @param body       The fields extracted from the response body, or null if the body could not be parsed.
+     * @param retryAfter The Retry-After header of the response, or null if not present.
+     */
+    public OnfidoResponse(int statusCode, JSONObject body, String retryAfter) {
+
+        this.statusCode = statusCode;
+        this.body = body;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+
+        return statusCode;
+    }
+
+    public JSONObject getBody() {
+
+        return body;
+    }
+
+    public String getRetryAfter() {
+
+        return retryAfter;
+    }
+}
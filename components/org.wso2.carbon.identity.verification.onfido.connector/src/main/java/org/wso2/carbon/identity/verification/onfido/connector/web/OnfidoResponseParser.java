@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * The OnfidoResponseParser class extracts the top level fields needed by the connector from the JSON responses of
+ * the Onfido API. The response is read as a token stream, so nested objects and arrays such as the output of a
+ * workflow run are skipped without being materialized.
+ */
+public class OnfidoResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private OnfidoResponseParser() {
+
+    }
+
+    /**
+     * Extracts the given top level scalar fields from a JSON response stream. Parsing stops as soon as all the
+     * fields have been found, and the stream is not closed.
+     *
+     * @param inputStream The stream of the JSON response body.
+     * @param fieldNames  The names of the fields to be extracted. If empty, all the top level scalar fields are
+     *                    extracted.
+     * @return A JSONObject containing the extracted fields that are present in the response.
+     * @throws IOException If the response body cannot be read or is not a JSON object.
+     */
+    public static JSONObject parse(InputStream inputStream, Set<String> fieldNames) throws IOException {
+
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            return parse(parser, fieldNames);
+        }
+    }
+
+    /**
+     * Extracts the given top level scalar fields from a JSON response body.
+     *
+     * @param body       The JSON response body.
+     * @param fieldNames The names of the fields to be extracted. If empty, all the top level scalar fields are
+     *                   extracted.
+     * @return A JSONObject containing the extracted fields that are present in the response.
+     * @throws IOException If the response body is not a JSON object.
+     */
+    public static JSONObject parse(byte[] body, Set<String> fieldNames) throws IOException {
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser, fieldNames);
+        }
+    }
+
+    private static JSONObject parse(JsonParser parser, Set<String> fieldNames) throws IOException {
+
+        // The stream belongs to the HTTP connection, hence it is released by the caller.
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object in the Onfido response.");
+        }
+
+        JSONObject result = new JSONObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken == null) {
+                break;
+            }
+            if (valueToken.isStructStart()) {
+                parser.skipChildren();
+            } else if (fieldNames.isEmpty() || fieldNames.contains(fieldName)) {
+                result.put(fieldName, getScalarValue(parser, valueToken));
+                if (!fieldNames.isEmpty() && result.length() == fieldNames.size()) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Object getScalarValue(JsonParser parser, JsonToken valueToken) throws IOException {
+
+        switch (valueToken) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            case VALUE_NULL:
+                return JSONObject.NULL;
+            default:
+                return parser.getText();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.MAX_RETRIES;
+
+/**
+ * The OnfidoRetryHandler class retries idempotent Onfido API calls which fail with a transient status, such as when
+ * Onfido rate limits the requests or a gateway in front of it is unavailable. Retries are delayed by the Retry-After
+ * header of the response if present, or else by an exponential backoff with full jitter. Each tenant has a retry
+ * budget which is refilled at a fixed rate, so that retries cannot amplify the load on Onfido during an outage.
+ */
+public class OnfidoRetryHandler {
+
+    private static final Log log = LogFactory.getLog(OnfidoRetryHandler.class);
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(SC_TOO_MANY_REQUESTS,
+            HttpStatus.SC_BAD_GATEWAY, HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_GATEWAY_TIMEOUT);
+
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    // Retry delays in milliseconds. A Retry-After longer than the maximum delay is not waited for.
+    private static final long BASE_RETRY_DELAY = 200;
+    private static final long MAX_RETRY_DELAY = 2000;
+    // Each tenant may retry a burst of up to 20 requests, and then 2 requests per second.
+    private static final double RETRY_BUDGET_CAPACITY = 20;
+    private static final double RETRY_BUDGET_REFILL_RATE = 2.0 / TimeUnit.SECONDS.toNanos(1);
+
+    private static final Map<Integer, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+
+    private OnfidoRetryHandler() {
+
+    }
+
+    /**
+     * Executes a blocking Onfido API call, retrying it while it fails with a transient status. The response of the
+     * last attempt is returned, so that a status which is still failing is reported by the caller as usual.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param onfidoCall           The idempotent Onfido API call.
+     * @return The response of the last attempt.
+     * @throws OnfidoServerException If an error occurred while calling the Onfido API.
+     * @throws OnfidoClientException If the Onfido API call is not valid.
+     */
+    public static OnfidoResponse execute(Map<String, String> idVConfigPropertyMap, OnfidoCall onfidoCall)
+            throws OnfidoServerException, OnfidoClientException {
+
+        int maxRetries = getMaxRetries(idVConfigPropertyMap);
+        OnfidoResponse response = onfidoCall.execute();
+        for (int retry = 1; retry <= maxRetries && isRetryable(response.getStatusCode()); retry++) {
+            long retryDelay = getRetryDelay(getRetryBudget(getTenantId()), retry, response.getStatusCode(),
+                    response.getRetryAfter());
+            if (retryDelay < 0) {
+                break;
+            }
+            try {
+                Thread.sleep(retryDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            response = onfidoCall.execute();
+        }
+        return response;
+    }
+
+    /**
+     * Executes a non-blocking Onfido API call, retrying it while it fails with a transient status. The retries are
+     * scheduled without blocking a thread, and cancelling the returned future aborts the attempt in flight.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param exchangeSupplier     Supplies a new exchange of the idempotent Onfido API call for each attempt.
+     * @return A future of the response of the last attempt.
+     */
+    public static CompletableFuture<HttpResponse<byte[]>> executeAsync(
+            Map<String, String> idVConfigPropertyMap,
+            Supplier<CompletableFuture<HttpResponse<byte[]>>> exchangeSupplier) {
+
+        int maxRetries = getMaxRetries(idVConfigPropertyMap);
+        CompletableFuture<HttpResponse<byte[]>> exchange = exchangeSupplier.get();
+        if (maxRetries == 0) {
+            return exchange;
+        }
+        // Retries are sent from the scheduler threads, hence the tenant of the caller is captured here.
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        AsyncRetry asyncRetry = new AsyncRetry(exchangeSupplier, maxRetries, carbonContext.getTenantId(),
+                carbonContext.getTenantDomain());
+        asyncRetry.onResponse(exchange, 1);
+        return asyncRetry.result;
+    }
+
+    /**
+     * Gets the longest time an Onfido API call may take with its retries. Each attempt may wait for the rate limiter
+     * of the API token and then for a connection and the response, and each retry is delayed by at most the maximum
+     * retry delay.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The longest duration of a call.
+     */
+    public static Duration getMaxCallDuration(Map<String, String> idVConfigPropertyMap) {
+
+        int maxRetries = getMaxRetries(idVConfigPropertyMap);
+        Duration attemptDuration = HTTPClientManager.getInstance().getRequestTimeout(idVConfigPropertyMap)
+                .plus(RateLimiterManager.getInstance().getMaxWait(idVConfigPropertyMap));
+        return attemptDuration.multipliedBy(maxRetries + 1L).plusMillis(MAX_RETRY_DELAY * maxRetries);
+    }
+
+    static boolean isRetryable(int statusCode) {
+
+        return RETRYABLE_STATUS_CODES.contains(statusCode);
+    }
+
+    /**
+     * Calculates the delay before the given retry.
+     *
+     * @param retryBudget The retry budget of the tenant.
+     * @param retry       The number of the retry, starting from 1.
+     * @param statusCode  The status code of the failed attempt.
+     * @param retryAfter  The Retry-After header of the failed attempt, or null if not present.
+     * @return The delay in milliseconds, or -1 if the call must not be retried.
+     */
+    private static long getRetryDelay(RetryBudget retryBudget, int retry, int statusCode, String retryAfter) {
+
+        long retryDelay = parseRetryAfter(retryAfter);
+        if (retryDelay < 0) {
+            long backoff = Math.min(MAX_RETRY_DELAY, BASE_RETRY_DELAY << Math.min(retry - 1, 16));
+            retryDelay = ThreadLocalRandom.current().nextLong(backoff + 1);
+        } else if (retryDelay > MAX_RETRY_DELAY) {
+            if (log.isDebugEnabled()) {
+                log.debug("Not retrying the Onfido API call with status: " + statusCode + " since Onfido asked to " +
+                        "retry after " + retryDelay + "ms.");
+            }
+            return -1;
+        }
+        if (!retryBudget.tryAcquire()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Not retrying the Onfido API call with status: " + statusCode + " since the retry budget " +
+                        "of the tenant is exhausted.");
+            }
+            return -1;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Retrying the Onfido API call with status: " + statusCode + " in " + retryDelay + "ms. " +
+                    "Retry: " + retry);
+        }
+        return retryDelay;
+    }
+
+    /**
+     * Parses the Retry-After header, which holds either a number of seconds or an HTTP date.
+     *
+     * @param retryAfter The Retry-After header value.
+     * @return The delay in milliseconds, or -1 if the header is not present or invalid.
+     */
+    private static long parseRetryAfter(String retryAfter) {
+
+        if (StringUtils.isBlank(retryAfter)) {
+            return -1;
+        }
+        String value = retryAfter.trim();
+        if (StringUtils.isNumeric(value)) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        Date retryAfterDate = DateUtils.parseDate(value);
+        if (retryAfterDate == null) {
+            return -1;
+        }
+        return Math.max(0, retryAfterDate.getTime() - System.currentTimeMillis());
+    }
+
+    private static int getMaxRetries(Map<String, String> idVConfigPropertyMap) {
+
+        String maxRetries = idVConfigPropertyMap.get(MAX_RETRIES);
+        if (StringUtils.isBlank(maxRetries)) {
+            return DEFAULT_MAX_RETRIES;
+        }
+        try {
+            int value = Integer.parseInt(maxRetries.trim());
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the default value.
+        }
+        log.warn("Invalid value: " + maxRetries + " configured for the Onfido property: " + MAX_RETRIES +
+                ". Using the default value: " + DEFAULT_MAX_RETRIES);
+        return DEFAULT_MAX_RETRIES;
+    }
+
+    private static int getTenantId() {
+
+        return PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+    }
+
+    private static RetryBudget getRetryBudget(int tenantId) {
+
+        return retryBudgets.computeIfAbsent(tenantId, key -> new RetryBudget());
+    }
+
+    /**
+     * An Onfido API call which returns the response read from the connection.
+     */
+    @FunctionalInterface
+    public interface OnfidoCall {
+
+        OnfidoResponse execute() throws OnfidoServerException, OnfidoClientException;
+    }
+
+    /**
+     * Token bucket limiting the retries of a tenant.
+     */
+    private static final class RetryBudget {
+
+        private double tokens = RETRY_BUDGET_CAPACITY;
+        private long lastRefillTime = System.nanoTime();
+
+        synchronized boolean tryAcquire() {
+
+            long now = System.nanoTime();
+            tokens = Math.min(RETRY_BUDGET_CAPACITY, tokens + (now - lastRefillTime) * RETRY_BUDGET_REFILL_RATE);
+            lastRefillTime = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * The state of a non-blocking call which is being retried.
+     */
+    private static final class AsyncRetry {
+
+        private final CompletableFuture<HttpResponse<byte[]>> result = new CompletableFuture<>();
+        private final AtomicReference<CompletableFuture<HttpResponse<byte[]>>> inFlightExchange =
+                new AtomicReference<>();
+        private final Supplier<CompletableFuture<HttpResponse<byte[]>>> exchangeSupplier;
+        private final int maxRetries;
+        private final int tenantId;
+        private final String tenantDomain;
+
+        AsyncRetry(Supplier<CompletableFuture<HttpResponse<byte[]>>> exchangeSupplier, int maxRetries, int tenantId,
+                   String tenantDomain) {
+
+            this.exchangeSupplier = exchangeSupplier;
+            this.maxRetries = maxRetries;
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+            result.whenComplete((response, throwable) -> {
+                CompletableFuture<HttpResponse<byte[]>> exchange = inFlightExchange.get();
+                if (result.isCancelled() && exchange != null) {
+                    exchange.cancel(true);
+                }
+            });
+        }
+
+        void onResponse(CompletableFuture<HttpResponse<byte[]>> exchange, int retry) {
+
+            inFlightExchange.set(exchange);
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+                return;
+            }
+            exchange.whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                    return;
+                }
+                if (retry > maxRetries || !isRetryable(response.statusCode())) {
+                    result.complete(response);
+                    return;
+                }
+                long retryDelay = getRetryDelay(getRetryBudget(tenantId), retry, response.statusCode(),
+                        response.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null));
+                if (retryDelay < 0) {
+                    result.complete(response);
+                    return;
+                }
+                CompletableFuture.delayedExecutor(retryDelay, TimeUnit.MILLISECONDS).execute(() -> retry(retry));
+            });
+        }
+
+        private void retry(int retry) {
+
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<HttpResponse<byte[]>> exchange;
+            PrivilegedCarbonContext.startTenantFlow();
+            try {
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantId(tenantId);
+                carbonContext.setTenantDomain(tenantDomain);
+                exchange = exchangeSupplier.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+            onResponse(exchange, retry + 1);
+        }
+    }
+}
@@ -19,25 +19,30 @@
 package org.wso2.carbon.identity.verification.onfido.connector.web;
 
 import org.apache.http.HttpHeaders;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.message.BasicHttpResponse;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.Map;
 
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.APPLICATION_JSON;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.BASE_URL;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDENTITY_VERIFICATION;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_INVALID_BASE_URL;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_ONFIDO_UNAVAILABLE;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_RATE_LIMIT_EXCEEDED;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN_HEADER;
 
 /**
@@ -52,97 +57,133 @@ public class OnfidoWebUtils {
     /**
      * Send an HTTP POST request.
      *
-     * @param apiToken    API token provided by Onfido.
-     * @param requestURL  The URL to which the POST request should be sent.
-     * @param requestBody A hashmap that includes the parameters to be sent through the request.
-     * @return httpResponse         The response received from the HTTP call.
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param requestURL           The URL to which the request should be sent.
+     * @param requestBody          The JSON body to be sent through the request.
+     * @param responseHandler      The handler that reads the response while the connection is held.
+     * @param <T>                  The type of the value produced by the response handler.
+     * @return The value produced by the response handler.
      * @throws OnfidoServerException Exception thrown when an error occurred with the
      *                               HTTP client connection.
      */
-    public static HttpResponse httpPost(String apiToken, String requestURL, String requestBody)
+    public static <T> T httpPost(Map<String, String> idVConfigPropertyMap, String requestURL, String requestBody,
+                                 ResponseHandler<? extends T> responseHandler)
             throws OnfidoServerException, OnfidoClientException {
 
         HttpPost request = new HttpPost(requestURL);
-        request.addHeader(HttpHeaders.AUTHORIZATION, TOKEN_HEADER + apiToken);
-        request.addHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON);
         request.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
-
-        CloseableHttpClient client = HTTPClientManager.getInstance().getHttpClient();
-        try (CloseableHttpResponse response = client.execute(request)) {
-            return toHttpResponse(response);
-        } catch (UnknownHostException e) {
-            throw new OnfidoClientException(ERROR_INVALID_BASE_URL.getCode(),
-                    ERROR_INVALID_BASE_URL.getMessage(), e);
-        } catch (IOException e) {
-            throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
-                    ERROR_IDENTITY_VERIFICATION.getMessage(), e);
-        }
+        return execute(idVConfigPropertyMap, request, responseHandler);
     }
 
     /**
      * Send an HTTP PUT request.
      *
-     * @param apiToken    API token provided by Onfido.
-     * @param requestURL  The URL to which the POST request should be sent.
-     * @param requestBody A hashmap that includes the parameters to be sent through the request.
-     * @return httpResponse         The response received from the HTTP call.
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param requestURL           The URL to which the request should be sent.
+     * @param requestBody          The JSON body to be sent through the request.
+     * @param responseHandler      The handler that reads the response while the connection is held.
+     * @param <T>                  The type of the value produced by the response handler.
+     * @return The value produced by the response handler.
      * @throws OnfidoServerException Exception thrown when an error occurred with the HTTP
      *                               client connection.
      */
-    public static HttpResponse httpPut(String apiToken, String requestURL, String requestBody)
+    public static <T> T httpPut(Map<String, String> idVConfigPropertyMap, String requestURL, String requestBody,
+                                ResponseHandler<? extends T> responseHandler)
             throws OnfidoServerException, OnfidoClientException {
 
         HttpPut request = new HttpPut(requestURL);
-        request.addHeader(HttpHeaders.AUTHORIZATION, TOKEN_HEADER + apiToken);
-        request.addHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON);
         request.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
-
-        CloseableHttpClient client = HTTPClientManager.getInstance().getHttpClient();
-        try (CloseableHttpResponse response = client.execute(request)) {
-            return toHttpResponse(response);
-        } catch (UnknownHostException e) {
-            throw new OnfidoClientException(ERROR_INVALID_BASE_URL.getCode(),
-                    ERROR_INVALID_BASE_URL.getMessage(), e);
-        } catch (IOException e) {
-            throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
-                    ERROR_IDENTITY_VERIFICATION.getMessage(), e);
-        }
+        return execute(idVConfigPropertyMap, request, responseHandler);
     }
 
     /**
-     * Send an HTTP PUT request.
+     * Send an HTTP GET request.
      *
-     * @param apiToken   API token provided by Onfido.
-     * @param requestURL The URL to which the POST request should be sent.
-     * @return httpResponse         The response received from the HTTP call.
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @param requestURL           The URL to which the request should be sent.
+     * @param responseHandler      The handler that reads the response while the connection is held.
+     * @param <T>                  The type of the value produced by the response handler.
+     * @return The value produced by the response handler.
      * @throws OnfidoServerException Exception thrown when an error occurred with the HTTP
      *                               client connection.
      */
-    public static HttpResponse httpGet(String apiToken, String requestURL)
+    public static <T> T httpGet(Map<String, String> idVConfigPropertyMap, String requestURL,
+                                ResponseHandler<? extends T> responseHandler)
+            throws OnfidoServerException, OnfidoClientException {
+
+        return execute(idVConfigPropertyMap, new HttpGet(requestURL), responseHandler);
+    }
+
+    /**
+     * Executes the request and hands the response to the given handler. The handler reads the response directly
+     * from the pooled connection, and the connection is released to the pool as soon as the handler returns.
+     * The request fails fast while the circuit of the base URL is open, without taking a permit of the rate limiter
+     * of the API token, and otherwise waits for a permit of the rate limiter before it is sent. The latency reported
+     * to the circuit breaker is measured from the moment the request is written to its connection, and a request
+     * which times out waiting for a connection of the pool of the tenant is not counted as a failure of Onfido.
+     */
+    private static <T> T execute(Map<String, String> idVConfigPropertyMap, HttpUriRequest request,
+                                 ResponseHandler<? extends T> responseHandler)
             throws OnfidoServerException, OnfidoClientException {
 
-        HttpGet request = new HttpGet(requestURL);
-        request.addHeader(HttpHeaders.AUTHORIZATION, TOKEN_HEADER + apiToken);
+        request.addHeader(HttpHeaders.AUTHORIZATION, TOKEN_HEADER + idVConfigPropertyMap.get(TOKEN));
         request.addHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON);
 
-        CloseableHttpClient client = HTTPClientManager.getInstance().getHttpClient();
-        try (CloseableHttpResponse response = client.execute(request)) {
-            return toHttpResponse(response);
+        CloseableHttpClient client = HTTPClientManager.getInstance().getHttpClient(idVConfigPropertyMap);
+        String baseUrl = idVConfigPropertyMap.get(BASE_URL);
+        OnfidoRateLimiter rateLimiter = RateLimiterManager.getInstance().getRateLimiter(idVConfigPropertyMap);
+        OnfidoCircuitBreaker circuitBreaker = CircuitBreakerManager.getInstance().getCircuitBreaker(baseUrl);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw createUnavailableException(baseUrl);
+        }
+        long waitNanos = rateLimiter.reserve();
+        if (waitNanos < 0) {
+            circuitBreaker.releasePermission();
+            throw new OnfidoServerException(ERROR_RATE_LIMIT_EXCEEDED.getCode(),
+                    ERROR_RATE_LIMIT_EXCEEDED.getMessage());
+        }
+        if (waitNanos > 0) {
+            // The permission is not held while the call waits, as it may be one of the few probe calls let through
+            // by a half-open circuit.
+            circuitBreaker.releasePermission();
+            rateLimiter.awaitPermit(waitNanos);
+            if (!circuitBreaker.tryAcquirePermission()) {
+                throw createUnavailableException(baseUrl);
+            }
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        int[] statusCode = new int[1];
+        try {
+            T result = client.execute(request, response -> {
+                statusCode[0] = response.getStatusLine().getStatusCode();
+                return responseHandler.handleResponse(response);
+            }, context);
+            Long sentTime = context.getAttribute(HTTPClientManager.REQUEST_SENT_TIME, Long.class);
+            circuitBreaker.onResponse(statusCode[0], sentTime != null ? System.nanoTime() - sentTime : 0);
+            return result;
+        } catch (ConnectionPoolTimeoutException e) {
+            // The pool is local to the tenant, so exhausting it does not indicate that Onfido is unhealthy.
+            circuitBreaker.releasePermission();
+            throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                    ERROR_IDENTITY_VERIFICATION.getMessage(), e);
         } catch (UnknownHostException e) {
+            circuitBreaker.onError();
             throw new OnfidoClientException(ERROR_INVALID_BASE_URL.getCode(),
                     ERROR_INVALID_BASE_URL.getMessage(), e);
         } catch (IOException e) {
+            circuitBreaker.onError();
             throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
                     ERROR_IDENTITY_VERIFICATION.getMessage(), e);
+        } catch (RuntimeException e) {
+            circuitBreaker.onError();
+            throw e;
         }
     }
 
-    private static HttpResponse toHttpResponse(CloseableHttpResponse response) throws IOException {
+    private static OnfidoServerException createUnavailableException(String baseUrl) {
 
-        HttpResponse result = new BasicHttpResponse(response.getStatusLine());
-        if (response.getEntity() != null) {
-            result.setEntity(new BufferedHttpEntity(response.getEntity()));
-        }
-        return result;
+        return new OnfidoServerException(ERROR_ONFIDO_UNAVAILABLE.getCode(),
+                String.format(ERROR_ONFIDO_UNAVAILABLE.getMessage(), baseUrl));
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.wso2.carbon.identity.verification.onfido.connector.cache.ExpiringCache;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDENTITY_VERIFICATION;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.RATE_LIMIT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.RATE_LIMIT_MAX_WAIT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN;
+
+/**
+ * The RateLimiterManager class keeps a rate limiter for each Onfido API token, since Onfido enforces its request
+ * limits per account. Calls made with the same token from different tenants or base URLs share the same limiter.
+ * The limiters are keyed by a hash of the token, so that the token itself is not retained or exposed. When IdV
+ * Providers share a token but configure different rate limit settings, the limiter of the token applies the most
+ * restrictive settings used within the last few minutes. The limiter of a token that is no longer used is discarded
+ * once its settings expire, by which time a new limiter would start with the same full bucket.
+ */
+public class RateLimiterManager implements RateLimiterManagerMXBean {
+
+    // Onfido permits 400 requests per minute for an account by default.
+    private static final int DEFAULT_RATE_LIMIT = 400;
+    private static final int DEFAULT_RATE_LIMIT_MAX_WAIT = 2000;
+    private static final int TOKEN_HASH_PREFIX_LENGTH = 12;
+    // Settings that have not been used for this long no longer restrict the limiter of the token.
+    private static final long SETTINGS_EXPIRY_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int MAX_RATE_LIMITERS = 10000;
+    // A digest per thread, so that the token is hashed without creating a digest on every call.
+    private static final ThreadLocal<MessageDigest> TOKEN_DIGEST = new ThreadLocal<>();
+    private static volatile RateLimiterManager rateLimiterManagerInstance;
+    private final ExpiringCache<TokenRateLimiter> rateLimiters =
+            new ExpiringCache<>(MAX_RATE_LIMITERS, TimeUnit.NANOSECONDS.toMillis(SETTINGS_EXPIRY_NANOS));
+
+    private RateLimiterManager() {
+
+    }
+
+    /**
+     * Gets the singleton instance of RateLimiterManager.
+     *
+     * @return The singleton instance of RateLimiterManager.
+     */
+    public static RateLimiterManager getInstance() {
+
+        if (rateLimiterManagerInstance == null) {
+            synchronized (RateLimiterManager.class) {
+                if (rateLimiterManagerInstance == null) {
+                    rateLimiterManagerInstance = new RateLimiterManager();
+                }
+            }
+        }
+        return rateLimiterManagerInstance;
+    }
+
+    /**
+     * Gets the rate limiter of the Onfido API token configured in the IdV Provider. The limiter is created on first
+     * use, and replaced only when the most restrictive settings used with the token change, so that IdV Providers
+     * sharing the token with different settings do not reset the limiter on every call.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The rate limiter of the API token.
+     * @throws OnfidoServerException If the API token cannot be hashed.
+     */
+    public OnfidoRateLimiter getRateLimiter(Map<String, String> idVConfigPropertyMap) throws OnfidoServerException {
+
+        int rateLimit = HTTPClientManager.getPositiveIntProperty(idVConfigPropertyMap, RATE_LIMIT, DEFAULT_RATE_LIMIT);
+        int maxWait = HTTPClientManager.getPositiveIntProperty(idVConfigPropertyMap, RATE_LIMIT_MAX_WAIT,
+                DEFAULT_RATE_LIMIT_MAX_WAIT);
+        String tokenHash = hashToken(idVConfigPropertyMap.get(TOKEN));
+        synchronized (this) {
+            TokenRateLimiter tokenRateLimiter = rateLimiters.get(tokenHash);
+            if (tokenRateLimiter == null) {
+                tokenRateLimiter = new TokenRateLimiter(tokenHash.substring(0, TOKEN_HASH_PREFIX_LENGTH));
+            }
+            // Caching the limiter again extends its expiry, so that only the limiters of unused tokens expire.
+            rateLimiters.put(tokenHash, tokenRateLimiter);
+            return tokenRateLimiter.getRateLimiter(rateLimit, maxWait);
+        }
+    }
+
+    /**
+     * Gets the maximum time a call made with the API token configured in the IdV Provider waits for the rate limiter.
+     *
+     * @param idVConfigPropertyMap The map containing the configuration properties of the IdV Provider.
+     * @return The maximum wait time.
+     */
+    public Duration getMaxWait(Map<String, String> idVConfigPropertyMap) {
+
+        return Duration.ofMillis(HTTPClientManager.getPositiveIntProperty(idVConfigPropertyMap, RATE_LIMIT_MAX_WAIT,
+                DEFAULT_RATE_LIMIT_MAX_WAIT));
+    }
+
+    @Override
+    public int getQueuedCallCount() {
+
+        int queuedCallCount = 0;
+        for (TokenRateLimiter tokenRateLimiter : rateLimiters.values()) {
+            queuedCallCount += tokenRateLimiter.rateLimiter.getStatistics().getQueuedCalls();
+        }
+        return queuedCallCount;
+    }
+
+    @Override
+    public List<RateLimiterStatistics> getRateLimiters() {
+
+        List<RateLimiterStatistics> statistics = new ArrayList<>();
+        for (TokenRateLimiter tokenRateLimiter : rateLimiters.values()) {
+            statistics.add(tokenRateLimiter.rateLimiter.getStatistics());
+        }
+        return statistics;
+    }
+
+    private static String hashToken(String token) throws OnfidoServerException {
+
+        try {
+            MessageDigest messageDigest = TOKEN_DIGEST.get();
+            if (messageDigest == null) {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+                TOKEN_DIGEST.set(messageDigest);
+            }
+            return HexFormat.of().formatHex(messageDigest.digest(String.valueOf(token)
+                    .getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new OnfidoServerException(ERROR_IDENTITY_VERIFICATION.getCode(),
+                    ERROR_IDENTITY_VERIFICATION.getMessage(), e);
+        }
+    }
+
+    /**
+     * The rate limiter of an API token, together with the rate limit settings recently used with the token.
+     * Instances are only accessed while holding the lock of the manager.
+     */
+    private static final class TokenRateLimiter {
+
+        private final String key;
+        // Last use time of each pair of permits per minute and maximum wait in milliseconds.
+        private final Map<List<Integer>, Long> settingsLastUsed = new HashMap<>();
+        private volatile OnfidoRateLimiter rateLimiter;
+
+        private TokenRateLimiter(String key) {
+
+            this.key = key;
+        }
+
+        private OnfidoRateLimiter getRateLimiter(int rateLimit, int maxWait) {
+
+            long now = System.nanoTime();
+            settingsLastUsed.put(List.of(rateLimit, maxWait), now);
+            settingsLastUsed.values().removeIf(lastUsed -> now - lastUsed > SETTINGS_EXPIRY_NANOS);
+
+            int effectiveRateLimit = Integer.MAX_VALUE;
+            int effectiveMaxWait = Integer.MAX_VALUE;
+            for (List<Integer> settings : settingsLastUsed.keySet()) {
+                effectiveRateLimit = Math.min(effectiveRateLimit, settings.get(0));
+                effectiveMaxWait = Math.min(effectiveMaxWait, settings.get(1));
+            }
+            if (rateLimiter == null || !rateLimiter.hasSettings(effectiveRateLimit, effectiveMaxWait)) {
+                rateLimiter = new OnfidoRateLimiter(key, effectiveRateLimit, effectiveMaxWait);
+            }
+            return rateLimiter;
+        }
+    }
+}
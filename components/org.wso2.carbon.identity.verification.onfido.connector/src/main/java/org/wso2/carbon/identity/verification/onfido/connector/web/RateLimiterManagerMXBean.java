@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import java.util.List;
+
+/**
+ * Management interface exposing the usage of the rate limiters of the Onfido API tokens.
+ */
+public interface RateLimiterManagerMXBean {
+
+    /**
+     * Gets the number of calls currently waiting for a permit across all the rate limiters.
+     *
+     * @return The number of queued calls.
+     */
+    int getQueuedCallCount();
+
+    /**
+     * Gets the settings, the queue depth and the wait times of the rate limiter of each Onfido API token.
+     *
+     * @return The statistics of the rate limiters.
+     */
+    List<RateLimiterStatistics> getRateLimiters();
+}
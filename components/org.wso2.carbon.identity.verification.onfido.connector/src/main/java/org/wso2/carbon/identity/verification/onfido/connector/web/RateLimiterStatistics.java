@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+/**
+ * A snapshot of the usage of the rate limiter of an Onfido API token. Wait times are in milliseconds.
+ */
+public class RateLimiterStatistics {
+
+    private final String tokenHash;
+    private final int permitsPerMinute;
+    private final long maxWaitTime;
+    private final int queuedCalls;
+    private final long delayedCalls;
+    private final long rejectedCalls;
+    private final long averageWaitTime;
+    private final long longestWaitTime;
+
+    public RateLimiterStatistics(String tokenHash, int permitsPerMinute, long maxWaitTime, int queuedCalls,
+                                 long delayedCalls, long rejectedCalls, long averageWaitTime, long longestWaitTime) {
+
+        this.tokenHash = tokenHash;
+        this.permitsPerMinute = permitsPerMinute;
+        this.maxWaitTime = maxWaitTime;
+        this.queuedCalls = queuedCalls;
+        this.delayedCalls = delayedCalls;
+        this.rejectedCalls = rejectedCalls;
+        this.averageWaitTime = averageWaitTime;
+        this.longestWaitTime = longestWaitTime;
+    }
+
+    /**
+     * Gets a prefix of the SHA-256 hash of the API token, which identifies the rate limiter without revealing the
+     * token.
+     *
+     * @return The token hash prefix.
+     */
+    public String getTokenHash() {
+
+        return tokenHash;
+    }
+
+    public int getPermitsPerMinute() {
+
+        return permitsPerMinute;
+    }
+
+    public long getMaxWaitTime() {
+
+        return maxWaitTime;
+    }
+
+    public int getQueuedCalls() {
+
+        return queuedCalls;
+    }
+
+    public long getDelayedCalls() {
+
+        return delayedCalls;
+    }
+
+    public long getRejectedCalls() {
+
+        return rejectedCalls;
+    }
+
+    public long getAverageWaitTime() {
+
+        return averageWaitTime;
+    }
+
+    public long getLongestWaitTime() {
+
+        return longestWaitTime;
+    }
+}
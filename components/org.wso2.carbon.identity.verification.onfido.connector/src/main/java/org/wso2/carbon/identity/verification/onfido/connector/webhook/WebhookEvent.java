@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.webhook;
+
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoException;
+
+/**
+ * An Onfido webhook event processed asynchronously by the {@link WebhookProcessor}.
+ */
+@FunctionalInterface
+public interface WebhookEvent {
+
+    /**
+     * Processes the webhook event.
+     *
+     * @throws OnfidoException If an error occurs while processing the event.
+     */
+    void process() throws OnfidoException;
+}
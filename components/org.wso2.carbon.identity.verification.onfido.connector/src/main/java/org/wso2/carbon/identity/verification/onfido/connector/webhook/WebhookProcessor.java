@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.webhook;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The WebhookProcessor class processes the Onfido webhook events on a bounded pool of workers, so that a webhook can
+ * be acknowledged as soon as its signature is validated, without waiting for the claims to be updated. Events are
+ * rejected when the queue is full, so that Onfido redelivers them later instead of the backlog growing without bound.
+ * Since Onfido does not redeliver an acknowledged webhook, an event which fails with a server error is queued again
+ * a bounded number of times with an exponential backoff. The queue is held in memory and is drained when the bundle
+ * is deactivated.
+ */
+public class WebhookProcessor implements WebhookProcessorMXBean {
+
+    private static final Log log = LogFactory.getLog(WebhookProcessor.class);
+    private static final int WORKER_COUNT = 4;
+    private static final int QUEUE_CAPACITY = 500;
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_RETRIES = 3;
+    private static final long INITIAL_RETRY_DELAY = TimeUnit.SECONDS.toMillis(5);
+    private static volatile WebhookProcessor webhookProcessorInstance;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor retryScheduler;
+    private final AtomicLong processedEvents = new AtomicLong();
+    private final AtomicLong retriedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+
+    private WebhookProcessor() {
+
+        AtomicInteger workerCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "onfido-webhook-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        retryScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "onfido-webhook-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a new instance of WebhookProcessor, unless the current one is still running. The processor is started
+     * when the bundle is activated, and shut down when it is deactivated.
+     *
+     * @return The running instance of WebhookProcessor.
+     */
+    public static synchronized WebhookProcessor start() {
+
+        if (webhookProcessorInstance == null || webhookProcessorInstance.executor.isShutdown()) {
+            webhookProcessorInstance = new WebhookProcessor();
+        }
+        return webhookProcessorInstance;
+    }
+
+    /**
+     * Gets the instance of WebhookProcessor started when the bundle was activated. Once the bundle is deactivated,
+     * the instance is shut down and rejects the events until the bundle is activated again.
+     *
+     * @return The instance of WebhookProcessor, or null if the bundle has not been activated.
+     */
+    public static WebhookProcessor getInstance() {
+
+        return webhookProcessorInstance;
+    }
+
+    /**
+     * Queues a webhook event to be processed by a worker in the tenant of the caller.
+     *
+     * @param webhookEvent The webhook event.
+     * @return True if the event is queued, false if the queue is full or the processor is shut down.
+     */
+    public boolean submit(WebhookEvent webhookEvent) {
+
+        // Events are processed in the worker threads, hence the tenant of the caller is captured here.
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        int tenantId = carbonContext.getTenantId();
+        String tenantDomain = carbonContext.getTenantDomain();
+        try {
+            executor.execute(() -> process(webhookEvent, tenantId, tenantDomain, 0));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedEvents.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting webhook events, and waits for the queued events to be processed. Events waiting to be retried
+     * are dropped.
+     */
+    public void shutdown() {
+
+        int droppedRetries = retryScheduler.shutdownNow().size();
+        if (droppedRetries > 0) {
+            failedEvents.addAndGet(droppedRetries);
+            log.warn(droppedRetries + " Onfido webhook events waiting to be retried were not processed.");
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                int droppedEvents = executor.shutdownNow().size();
+                log.warn("Onfido webhook processing did not complete within " + SHUTDOWN_TIMEOUT + " ms. " +
+                        droppedEvents + " queued webhook events were not processed.");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int getQueuedEventCount() {
+
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+
+        return QUEUE_CAPACITY;
+    }
+
+    @Override
+    public int getActiveWorkerCount() {
+
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public long getProcessedEventCount() {
+
+        return processedEvents.get();
+    }
+
+    @Override
+    public int getPendingRetryCount() {
+
+        return retryScheduler.getQueue().size();
+    }
+
+    @Override
+    public long getRetriedEventCount() {
+
+        return retriedEvents.get();
+    }
+
+    @Override
+    public long getFailedEventCount() {
+
+        return failedEvents.get();
+    }
+
+    @Override
+    public long getRejectedEventCount() {
+
+        return rejectedEvents.get();
+    }
+
+    private void process(WebhookEvent webhookEvent, int tenantId, String tenantDomain, int retryCount) {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(tenantId);
+            carbonContext.setTenantDomain(tenantDomain);
+            webhookEvent.process();
+            processedEvents.incrementAndGet();
+        } catch (OnfidoClientException e) {
+            // The event is not retried, since it would be rejected again.
+            failedEvents.incrementAndGet();
+            log.error("Error while processing an Onfido webhook event of tenant: " + tenantDomain, e);
+        } catch (OnfidoException | RuntimeException e) {
+            if (retryCount < MAX_RETRIES && scheduleRetry(webhookEvent, tenantId, tenantDomain, retryCount + 1)) {
+                log.warn("Error while processing an Onfido webhook event of tenant: " + tenantDomain +
+                        ". The event will be retried. Attempt " + (retryCount + 1) + " of " + MAX_RETRIES + ".", e);
+            } else {
+                failedEvents.incrementAndGet();
+                log.error("Error while processing an Onfido webhook event of tenant: " + tenantDomain +
+                        ". The event is dropped after " + retryCount + " retries.", e);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Queues the event again once the backoff of the retry has elapsed. The retry is dropped if the queue is full
+     * at that time, or the processor is shut down.
+     */
+    private boolean scheduleRetry(WebhookEvent webhookEvent, int tenantId, String tenantDomain, int retryCount) {
+
+        long delay = INITIAL_RETRY_DELAY << (retryCount - 1);
+        try {
+            retryScheduler.schedule(() -> {
+                try {
+                    executor.execute(() -> process(webhookEvent, tenantId, tenantDomain, retryCount));
+                    retriedEvents.incrementAndGet();
+                } catch (RejectedExecutionException e) {
+                    failedEvents.incrementAndGet();
+                    log.error("Retry " + retryCount + " of an Onfido webhook event of tenant: " + tenantDomain +
+                            " is dropped, since the webhook queue is full or shut down.");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
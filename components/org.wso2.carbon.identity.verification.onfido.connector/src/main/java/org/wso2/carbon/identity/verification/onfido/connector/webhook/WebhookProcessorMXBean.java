@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.webhook;
+
+/**
+ * Management interface exposing the backlog of the Onfido webhook events processed asynchronously.
+ */
+public interface WebhookProcessorMXBean {
+
+    /**
+     * Gets the number of webhook events waiting in the queue.
+     *
+     * @return The number of queued events.
+     */
+    int getQueuedEventCount();
+
+    /**
+     * Gets the maximum number of webhook events that can wait in the queue.
+     *
+     * @return The capacity of the queue.
+     */
+    int getQueueCapacity();
+
+    /**
+     * Gets the number of webhook events being processed.
+     *
+     * @return The number of active workers.
+     */
+    int getActiveWorkerCount();
+
+    /**
+     * Gets the number of webhook events processed successfully.
+     *
+     * @return The number of processed events.
+     */
+    long getProcessedEventCount();
+
+    /**
+     * Gets the number of failed webhook events waiting for the backoff of their next retry.
+     *
+     * @return The number of events waiting to be retried.
+     */
+    int getPendingRetryCount();
+
+    /**
+     * Gets the number of times failed webhook events were queued again to be retried.
+     *
+     * @return The number of retries.
+     */
+    long getRetriedEventCount();
+
+    /**
+     * Gets the number of webhook events which failed and will not be retried.
+     *
+     * @return The number of failed events.
+     */
+    long getFailedEventCount();
+
+    /**
+     * Gets the number of webhook events rejected since the queue was full.
+     *
+     * @return The number of rejected events.
+     */
+    long getRejectedEventCount();
+}
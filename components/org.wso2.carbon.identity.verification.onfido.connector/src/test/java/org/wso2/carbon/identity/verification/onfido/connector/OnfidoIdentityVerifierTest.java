@@ -39,17 +39,26 @@ import org.wso2.carbon.extension.identity.verification.provider.IdVProviderManag
 import org.wso2.carbon.extension.identity.verification.provider.exception.IdVProviderMgtException;
 import org.wso2.carbon.extension.identity.verification.provider.model.IdVConfigProperty;
 import org.wso2.carbon.extension.identity.verification.provider.model.IdVProvider;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.IdVProviderCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.SdkTokenCache;
+import org.wso2.carbon.identity.verification.onfido.connector.cache.WorkflowRunStatusCache;
 import org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants;
 import org.wso2.carbon.identity.verification.onfido.connector.internal.OnfidoIDVDataHolder;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
 import org.wso2.carbon.identity.verification.onfido.connector.web.OnfidoAPIClient;
+import org.wso2.carbon.identity.verification.onfido.connector.web.OnfidoAsyncAPIClient;
 import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.jdbc.UniqueIDJDBCUserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -59,6 +68,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -69,6 +79,7 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDV_PROVIDER_CONFIG_PROPERTIES_EMPTY;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_IDV_PROVIDER_INVALID_OR_DISABLED;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_INVALID_TOKEN;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_INVALID_ONFIDO_VERIFICATION_FLOW_STATUS;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_VERIFICATION_FLOW_STATUS_NOT_FOUND;
 import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_VERIFICATION_REQUIRED_CLAIMS_NOT_FOUND;
@@ -96,6 +107,7 @@ public class OnfidoIdentityVerifierTest {
 
     private static MockedStatic<IdentityVerificationDataHolder> mockedIdVDataHolder;
     private static MockedStatic<OnfidoAPIClient> mockedOnfidoAPIClient;
+    private static MockedStatic<OnfidoAsyncAPIClient> mockedOnfidoAsyncAPIClient;
     private static MockedStatic<OnfidoIDVDataHolder> mockedOnfidoIDVDataHolder;
 
     private static final String TEST_USER_ID = "test_user_id";
@@ -125,6 +137,7 @@ public class OnfidoIdentityVerifierTest {
     private static final String WEBHOOK_TOKEN = "webhook_token";
     private static final String ID = "id";
     private static final String TOKEN = "token";
+    private static final String SDK_TOKEN = "sdk_token";
     private static final String APPLICANT_ID = "applicant_id";
     private static final String STATUS = "status";
 
@@ -134,6 +147,7 @@ public class OnfidoIdentityVerifierTest {
         onfidoIdentityVerifier = new OnfidoIdentityVerifier();
         mockedIdVDataHolder = mockStatic(IdentityVerificationDataHolder.class);
         mockedOnfidoAPIClient = mockStatic(OnfidoAPIClient.class);
+        mockedOnfidoAsyncAPIClient = mockStatic(OnfidoAsyncAPIClient.class);
         mockedOnfidoIDVDataHolder = mockStatic(OnfidoIDVDataHolder.class);
     }
 
@@ -142,6 +156,7 @@ public class OnfidoIdentityVerifierTest {
 
         mockedIdVDataHolder.close();
         mockedOnfidoAPIClient.close();
+        mockedOnfidoAsyncAPIClient.close();
         mockedOnfidoIDVDataHolder.close();
     }
 
@@ -149,6 +164,9 @@ public class OnfidoIdentityVerifierTest {
     public void setUp() throws Exception {
 
         MockitoAnnotations.openMocks(this);
+        IdVProviderCache.getInstance().clear();
+        SdkTokenCache.getInstance().clear();
+        WorkflowRunStatusCache.getInstance().clear();
         setupMocks();
     }
 
@@ -164,10 +182,11 @@ public class OnfidoIdentityVerifierTest {
         mockedOnfidoIDVDataHolder.when(OnfidoIDVDataHolder::getRealmService).thenReturn(mockRealmService);
         when(mockRealmService.getTenantUserRealm(anyInt())).thenReturn(mockUserRealm);
         when(mockUserRealm.getUserStoreManager()).thenReturn(mockUniqueIDUserStoreManager);
-        when(mockUniqueIDUserStoreManager.getUserClaimValueWithID(TEST_USER_ID, CLAIM_URI_FIRST_NAME, null))
-                .thenReturn(TEST_FIRST_NAME);
-        when(mockUniqueIDUserStoreManager.getUserClaimValueWithID(TEST_USER_ID, CLAIM_URI_LAST_NAME, null))
-                .thenReturn(TEST_LAST_NAME);
+        Map<String, String> userClaimValues = new HashMap<>();
+        userClaimValues.put(CLAIM_URI_FIRST_NAME, TEST_FIRST_NAME);
+        userClaimValues.put(CLAIM_URI_LAST_NAME, TEST_LAST_NAME);
+        when(mockUniqueIDUserStoreManager.getUserClaimValuesWithID(eq(TEST_USER_ID), any(String[].class), isNull()))
+                .thenReturn(userClaimValues);
     }
 
     private void setupMockIdVProvider() {
@@ -428,11 +447,11 @@ public class OnfidoIdentityVerifierTest {
 
         mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createApplicant(any(), any()))
                 .thenReturn(createApplicantResponse());
-        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createWorkflowRun(any(), any()))
-                .thenReturn(createWorkflowRunResponse(
-                        OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT));
-        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createSDKToken(any(), any()))
-                .thenReturn(createSDKTokenResponse());
+        mockedOnfidoAsyncAPIClient.when(() -> OnfidoAsyncAPIClient.createWorkflowRun(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(createWorkflowRunResponse(
+                        OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT)));
+        mockedOnfidoAsyncAPIClient.when(() -> OnfidoAsyncAPIClient.createSDKToken(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(createSDKTokenResponse()));
 
         // Since this is a new applicant no prior idv claims exist
         when(mockIdentityVerificationManager.getIdVClaims(eq(TEST_USER_ID), eq(TEST_IDV_PROVIDER_ID), isNull(),
@@ -467,11 +486,11 @@ public class OnfidoIdentityVerifierTest {
 
         mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.updateApplicant(any(), any(), any()))
                 .thenReturn(createApplicantResponse());
-        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createWorkflowRun(any(), any()))
-                .thenReturn(createWorkflowRunResponse(
-                        OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT));
-        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createSDKToken(any(), any()))
-                .thenReturn(createSDKTokenResponse());
+        mockedOnfidoAsyncAPIClient.when(() -> OnfidoAsyncAPIClient.createWorkflowRun(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(createWorkflowRunResponse(
+                        OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT)));
+        mockedOnfidoAsyncAPIClient.when(() -> OnfidoAsyncAPIClient.createSDKToken(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(createSDKTokenResponse()));
 
         IdVClaim firstNameClaim = new IdVClaim();
         firstNameClaim.setClaimUri(CLAIM_URI_FIRST_NAME);
@@ -510,6 +529,45 @@ public class OnfidoIdentityVerifierTest {
                 .updateIdVClaim(eq(TEST_USER_ID), any(IdVClaim.class), eq(TEST_TENANT_ID));
         verify(onfidoIdentityVerifier, times(1))
                 .storeIdVClaims(eq(TEST_USER_ID), anyList(), eq(TEST_TENANT_ID));
+
+        // The existing claims of the user are fetched once and shared by the initiation steps.
+        verify(mockIdentityVerificationManager, times(1)).getIdVClaims(eq(TEST_USER_ID), eq(TEST_IDV_PROVIDER_ID),
+                isNull(), eq(TEST_TENANT_ID));
+        verify(mockIdentityVerificationManager, never()).getIdVClaim(anyString(), anyString(), anyString(), anyInt());
+
+        // Only the values of the claims which are not yet sent to Onfido are retrieved from the user store.
+        verify(mockUniqueIDUserStoreManager, times(1)).getUserClaimValuesWithID(TEST_USER_ID,
+                new String[]{CLAIM_URI_LAST_NAME}, null);
+    }
+
+    @Test
+    public void testIdentityVerificationInitiationWithFailedSDKTokenCreation() throws Exception {
+
+        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createApplicant(any(), any()))
+                .thenReturn(createApplicantResponse());
+        CompletableFuture<JSONObject> workflowRunFuture = new CompletableFuture<>();
+        mockedOnfidoAsyncAPIClient.when(() -> OnfidoAsyncAPIClient.createWorkflowRun(any(), any()))
+                .thenReturn(workflowRunFuture);
+        mockedOnfidoAsyncAPIClient.when(() -> OnfidoAsyncAPIClient.createSDKToken(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new OnfidoClientException(ERROR_INVALID_TOKEN.getCode(),
+                        ERROR_INVALID_TOKEN.getMessage())));
+
+        when(mockIdentityVerificationManager.getIdVClaims(eq(TEST_USER_ID), eq(TEST_IDV_PROVIDER_ID), isNull(),
+                eq(TEST_TENANT_ID))).thenReturn(new IdVClaim[0]);
+
+        IdentityVerifierData identityVerifierData = createMockIdentityVerifierData(
+                OnfidoConstants.VerificationFlowStatus.INITIATED.getStatus());
+
+        try {
+            onfidoIdentityVerifier.verifyIdentity(TEST_USER_ID, identityVerifierData, TEST_TENANT_ID);
+            fail("Expected IdentityVerificationClientException was not thrown");
+        } catch (IdentityVerificationClientException e) {
+            assertEquals(e.getErrorCode(), ERROR_INVALID_TOKEN.getCode(), "Unexpected error code");
+        }
+
+        // The pending workflow run request should be cancelled once the SDK token request fails.
+        assertTrue(workflowRunFuture.isCancelled(), "Workflow run request should be cancelled");
+        verify(onfidoIdentityVerifier, times(0)).storeIdVClaims(anyString(), anyList(), anyInt());
     }
 
     @DataProvider(name = "workflowStatusDataProvider")
@@ -564,6 +622,58 @@ public class OnfidoIdentityVerifierTest {
                 .updateIdVClaim(eq(TEST_USER_ID), any(IdVClaim.class), eq(TEST_TENANT_ID));
     }
 
+    @Test(dataProvider = "workflowStatusDataProvider")
+    public void testWorkflowRunStatusNotRequestedWhenWorkflowRunEnded(
+            OnfidoConstants.WorkflowRunStatus workflowRunStatus) throws Exception {
+
+        List<IdVClaim> existingClaimsList = createMockFinalIdVClaims(workflowRunStatus);
+        IdVClaim[] existingClaims = existingClaimsList.toArray(new IdVClaim[0]);
+        when(mockIdentityVerificationManager.getIdVClaims(anyString(), anyString(), any(), anyInt())).thenReturn(
+                existingClaims);
+        when(mockIdentityVerificationManager.getIdVClaimsByMetadata(anyString(), anyString(), anyString(),
+                anyInt())).thenReturn(existingClaims);
+        mockedOnfidoAPIClient.clearInvocations();
+        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.getWorkflowRunStatus(any(), any()))
+                .thenReturn(createWorkflowRunResponse(workflowRunStatus));
+        doReturn(null).when(onfidoIdentityVerifier)
+                .updateIdVClaim(anyString(), any(IdVClaim.class), anyInt());
+
+        IdentityVerifierData result = onfidoIdentityVerifier.verifyIdentity(TEST_USER_ID,
+                createMockIdentityVerifierData(OnfidoConstants.VerificationFlowStatus.COMPLETED.getStatus()),
+                TEST_TENANT_ID);
+
+        // The status is requested from Onfido only while the persisted status is not an ending status.
+        int expectedStatusRequests = workflowRunStatus.isEndingStatus() ? 0 : 1;
+        mockedOnfidoAPIClient.verify(() -> OnfidoAPIClient.getWorkflowRunStatus(any(), any()),
+                times(expectedStatusRequests));
+        verify(onfidoIdentityVerifier, times(2 * expectedStatusRequests))
+                .updateIdVClaim(eq(TEST_USER_ID), any(IdVClaim.class), eq(TEST_TENANT_ID));
+        if (workflowRunStatus.isEndingStatus()) {
+            assertCommonClaimProperties(result.getIdVClaims(), workflowRunStatus.getStatus());
+        }
+    }
+
+    @Test
+    public void testWorkflowRunStatusNotRequestedWhenEndingStatusCached() throws Exception {
+
+        List<IdVClaim> existingClaimsList = createMockFinalIdVClaims(OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT);
+        IdVClaim[] existingClaims = existingClaimsList.toArray(new IdVClaim[0]);
+        when(mockIdentityVerificationManager.getIdVClaims(anyString(), anyString(), any(), anyInt())).thenReturn(
+                existingClaims);
+        when(mockIdentityVerificationManager.getIdVClaimsByMetadata(anyString(), anyString(), anyString(),
+                anyInt())).thenReturn(existingClaims);
+        mockedOnfidoAPIClient.clearInvocations();
+        WorkflowRunStatusCache.getInstance().put(TEST_IDV_PROVIDER_ID, TEST_WORKFLOW_RUN_ID, TEST_TENANT_ID,
+                OnfidoConstants.WorkflowRunStatus.APPROVED);
+
+        onfidoIdentityVerifier.verifyIdentity(TEST_USER_ID,
+                createMockIdentityVerifierData(OnfidoConstants.VerificationFlowStatus.COMPLETED.getStatus()),
+                TEST_TENANT_ID);
+
+        mockedOnfidoAPIClient.verify(() -> OnfidoAPIClient.getWorkflowRunStatus(any(), any()), times(0));
+        verify(onfidoIdentityVerifier, times(0)).updateIdVClaim(anyString(), any(IdVClaim.class), anyInt());
+    }
+
     @Test
     public void testSuccessfulIdentityVerificationReinitiation() throws Exception {
 
@@ -594,4 +704,51 @@ public class OnfidoIdentityVerifierTest {
         assertEquals(resultClaims.size(), 2, "Should have two claims");
         assertCommonClaimProperties(resultClaims, OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT.getStatus());
     }
+
+    @Test
+    public void testSdkTokenReusedOnReinitiation() throws Exception {
+
+        List<IdVClaim> existingClaimsList = createMockFinalIdVClaims(OnfidoConstants.WorkflowRunStatus.AWAITING_INPUT);
+        IdVClaim[] existingClaims = existingClaimsList.toArray(new IdVClaim[0]);
+        when(mockIdentityVerificationManager.getIdVClaims(eq(TEST_USER_ID), eq(TEST_IDV_PROVIDER_ID), isNull(),
+                eq(TEST_TENANT_ID))).thenReturn(existingClaims);
+        when(mockIdentityVerificationManager.getIdVClaimsByMetadata(eq(ONFIDO_WORKFLOW_RUN_ID),
+                eq(TEST_WORKFLOW_RUN_ID), eq(TEST_IDV_PROVIDER_ID), eq(TEST_TENANT_ID))).thenReturn(existingClaims);
+
+        // An SDK token which expires in an hour is reused, while one within the safety margin before expiry is not.
+        String sdkToken = createSdkToken(TimeUnit.HOURS.toSeconds(1));
+        String expiringSdkToken = createSdkToken(TimeUnit.MINUTES.toSeconds(1));
+        mockedOnfidoAPIClient.clearInvocations();
+        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createSDKToken(any(), any()))
+                .thenReturn(new JSONObject().put(TOKEN, sdkToken));
+
+        for (int i = 0; i < 2; i++) {
+            IdentityVerifierData result = onfidoIdentityVerifier.verifyIdentity(TEST_USER_ID,
+                    createMockIdentityVerifierData(OnfidoConstants.VerificationFlowStatus.REINITIATED.getStatus()),
+                    TEST_TENANT_ID);
+            assertEquals(result.getIdVClaims().get(0).getMetadata().get(SDK_TOKEN), sdkToken,
+                    "SDK token should match");
+        }
+        mockedOnfidoAPIClient.verify(() -> OnfidoAPIClient.createSDKToken(any(), any()), times(1));
+
+        SdkTokenCache.getInstance().clear();
+        mockedOnfidoAPIClient.when(() -> OnfidoAPIClient.createSDKToken(any(), any()))
+                .thenReturn(new JSONObject().put(TOKEN, expiringSdkToken));
+        for (int i = 0; i < 2; i++) {
+            onfidoIdentityVerifier.verifyIdentity(TEST_USER_ID,
+                    createMockIdentityVerifierData(OnfidoConstants.VerificationFlowStatus.REINITIATED.getStatus()),
+                    TEST_TENANT_ID);
+        }
+        mockedOnfidoAPIClient.verify(() -> OnfidoAPIClient.createSDKToken(any(), any()), times(3));
+    }
+
+    private String createSdkToken(long expiresInSeconds) {
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = new JSONObject()
+                .put("exp", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + expiresInSeconds)
+                .toString();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "." +
+                encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
 }
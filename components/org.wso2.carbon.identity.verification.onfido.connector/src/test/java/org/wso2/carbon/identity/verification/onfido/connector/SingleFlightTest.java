@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.extension.identity.verification.mgt.exception.IdentityVerificationClientException;
+import org.wso2.carbon.extension.identity.verification.mgt.exception.IdentityVerificationServerException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage.ERROR_CONCURRENT_REQUEST_TIMEOUT;
+
+public class SingleFlightTest {
+
+    private static final String TEST_KEY = "-1234:test_idvp_id:test_user_id";
+    private static final String TEST_REQUEST_KEY = "http://wso2.org/claims/givenname";
+    private static final String TEST_OTHER_REQUEST_KEY = "http://wso2.org/claims/lastname";
+    private static final Duration TEST_WAIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private ExecutorService executorService;
+
+    @BeforeMethod
+    public void setUp() {
+
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalRequestsShareResult() throws Exception {
+
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch releaseCall = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> {
+                    calls.incrementAndGet();
+                    callStarted.countDown();
+                    awaitRelease(releaseCall);
+                    return "result";
+                }));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS), "The call should start");
+
+        // The identical request made while the call is in flight waits for it instead of repeating it.
+        Future<String> follower = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> String.valueOf(calls.incrementAndGet())));
+        awaitWaitingCall(singleFlight);
+        releaseCall.countDown();
+
+        assertEquals(follower.get(5, TimeUnit.SECONDS), "result",
+                "The result of the identical request should be shared");
+        assertEquals(leader.get(5, TimeUnit.SECONDS), "result");
+        assertEquals(calls.get(), 1, "The call should be made once");
+
+        // Once the call completes, the next request is executed.
+        assertEquals(singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY, TEST_WAIT_TIMEOUT, () -> "next"), "next");
+    }
+
+    @Test
+    public void testIdenticalRequestsShareException() throws Exception {
+
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch releaseCall = new CountDownLatch(1);
+        IdentityVerificationClientException exception = new IdentityVerificationClientException("code", "message");
+
+        Future<String> leader = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> {
+                    callStarted.countDown();
+                    awaitRelease(releaseCall);
+                    throw exception;
+                }));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS), "The call should start");
+
+        Future<String> follower = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> "repeated"));
+        awaitWaitingCall(singleFlight);
+        releaseCall.countDown();
+
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+            fail("The exception of the identical request should be shared");
+        } catch (ExecutionException e) {
+            assertSame(e.getCause(), exception, "The exception of the identical request should be shared");
+        }
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            fail("The call should fail");
+        } catch (ExecutionException e) {
+            assertSame(e.getCause(), exception);
+        }
+    }
+
+    @Test
+    public void testDifferentRequestsDoNotRunConcurrently() throws Exception {
+
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch releaseCall = new CountDownLatch(1);
+        AtomicInteger runningCalls = new AtomicInteger();
+        AtomicInteger maxRunningCalls = new AtomicInteger();
+
+        Future<String> first = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> {
+                    maxRunningCalls.accumulateAndGet(runningCalls.incrementAndGet(), Math::max);
+                    callStarted.countDown();
+                    awaitRelease(releaseCall);
+                    runningCalls.decrementAndGet();
+                    return "first";
+                }));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS), "The call should start");
+
+        AtomicBoolean secondStarted = new AtomicBoolean();
+        Future<String> second = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_OTHER_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> {
+                    secondStarted.set(true);
+                    maxRunningCalls.accumulateAndGet(runningCalls.incrementAndGet(), Math::max);
+                    runningCalls.decrementAndGet();
+                    return "second";
+                }));
+        awaitWaitingCall(singleFlight);
+        assertFalse(secondStarted.get(), "The different request should wait for the request in flight");
+        releaseCall.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), "first");
+        assertEquals(second.get(5, TimeUnit.SECONDS), "second", "The different request should not share the result");
+        assertEquals(maxRunningCalls.get(), 1, "The requests of a key should not run concurrently");
+    }
+
+    @Test
+    public void testWaitForRequestInFlightTimesOut() throws Exception {
+
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch releaseCall = new CountDownLatch(1);
+
+        Future<String> leader = executorService.submit(() -> singleFlight.execute(TEST_KEY, TEST_REQUEST_KEY,
+                TEST_WAIT_TIMEOUT, () -> {
+                    callStarted.countDown();
+                    awaitRelease(releaseCall);
+                    return "result";
+                }));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS), "The call should start");
+
+        try {
+            singleFlight.execute(TEST_KEY, TEST_OTHER_REQUEST_KEY, Duration.ofMillis(100), () -> "other");
+            fail("The wait for the request in flight should time out");
+        } catch (IdentityVerificationServerException e) {
+            assertEquals(e.getErrorCode(), ERROR_CONCURRENT_REQUEST_TIMEOUT.getCode());
+        } finally {
+            releaseCall.countDown();
+        }
+        assertEquals(leader.get(5, TimeUnit.SECONDS), "result");
+    }
+
+    private static void awaitRelease(CountDownLatch releaseCall) {
+
+        try {
+            releaseCall.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitWaitingCall(SingleFlight<String> singleFlight) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getWaitingCallCount(TEST_KEY) == 0) {
+            assertTrue(System.nanoTime() < deadline, "A call should wait for the request in flight");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class ExpiringCacheTest {
+
+    private static final String TEST_KEY = "-1234:test_idvp_id";
+    private static final String TEST_VALUE = "test_value";
+
+    @Test
+    public void testEntryExpires() throws Exception {
+
+        ExpiringCache<String> cache = new ExpiringCache<>(10, 100);
+        cache.put(TEST_KEY, TEST_VALUE);
+        assertEquals(cache.get(TEST_KEY), TEST_VALUE, "The cached value should be returned");
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertNull(cache.get(TEST_KEY), "The expired value should not be returned");
+        assertEquals(cache.size(), 0, "The expired entry should be removed when it is read");
+    }
+
+    @Test
+    public void testOldestEntryIsEvicted() {
+
+        ExpiringCache<String> cache = new ExpiringCache<>(2, TimeUnit.MINUTES.toMillis(1));
+        cache.put("first", TEST_VALUE);
+        cache.put("second", TEST_VALUE);
+        cache.put("first", TEST_VALUE);
+        cache.put("third", TEST_VALUE);
+
+        assertEquals(cache.size(), 2, "The cache should not exceed its capacity");
+        assertNull(cache.get("second"), "The entry cached first should be evicted first");
+        assertEquals(cache.get("first"), TEST_VALUE, "The replaced entry should be kept");
+        assertEquals(cache.get("third"), TEST_VALUE);
+    }
+
+    @Test
+    public void testValuesExcludeExpiredEntries() throws Exception {
+
+        ExpiringCache<String> cache = new ExpiringCache<>(10, TimeUnit.MINUTES.toMillis(1));
+        cache.put("expiring", "expiring_value", 100);
+        cache.put(TEST_KEY, TEST_VALUE);
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(cache.values(), List.of(TEST_VALUE), "Only the values which have not expired should be returned");
+        assertEquals(cache.size(), 1, "The expired entry should be removed when the values are read");
+    }
+
+    @Test
+    public void testEntryWithoutTimeToLiveIsNotCached() {
+
+        ExpiringCache<String> cache = new ExpiringCache<>(10, TimeUnit.MINUTES.toMillis(1));
+        cache.put(TEST_KEY, TEST_VALUE);
+        cache.put(TEST_KEY, "expired_value", 0);
+
+        assertNull(cache.get(TEST_KEY), "A value which has already expired should not be cached");
+        assertNull(cache.remove("unknown_key"));
+    }
+}
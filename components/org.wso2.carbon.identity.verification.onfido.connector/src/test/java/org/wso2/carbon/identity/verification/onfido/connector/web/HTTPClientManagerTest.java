@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class HTTPClientManagerTest {
+
+    private static final String BASE_URL = "base_url";
+    private static final String READ_TIMEOUT = "read_timeout";
+    private static final String KEEP_ALIVE_TIMEOUT = "keep_alive_timeout";
+    private static final String MAX_CONNECTIONS = "max_connections";
+    private static final String TEST_BASE_URL = "https://api.onfido.com/v3.6";
+    private static final int TEST_TENANT_ID = 1;
+
+    private Map<String, String> idVConfigPropertyMap;
+    private MockedStatic<PrivilegedCarbonContext> mockedCarbonContext;
+
+    @BeforeMethod
+    public void setUp() {
+
+        idVConfigPropertyMap = new HashMap<>();
+        idVConfigPropertyMap.put(BASE_URL, TEST_BASE_URL);
+
+        PrivilegedCarbonContext carbonContext = mock(PrivilegedCarbonContext.class);
+        when(carbonContext.getTenantId()).thenReturn(TEST_TENANT_ID);
+        mockedCarbonContext = mockStatic(PrivilegedCarbonContext.class);
+        mockedCarbonContext.when(PrivilegedCarbonContext::getThreadLocalCarbonContext).thenReturn(carbonContext);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        HTTPClientManager.getInstance().shutdown();
+        mockedCarbonContext.close();
+    }
+
+    @Test
+    public void testConnectionPoolSettings() throws Exception {
+
+        idVConfigPropertyMap.put(READ_TIMEOUT, "5000");
+        idVConfigPropertyMap.put(MAX_CONNECTIONS, "invalid");
+        HTTPClientManager httpClientManager = HTTPClientManager.getInstance();
+        httpClientManager.getHttpClient(idVConfigPropertyMap);
+
+        List<ConnectionPoolStatistics> connectionPools = httpClientManager.getConnectionPools();
+        assertEquals(connectionPools.size(), 1, "A single pool should be created for the tenant and base URL");
+        ConnectionPoolStatistics statistics = connectionPools.get(0);
+        assertEquals(statistics.getPoolKey(), TEST_TENANT_ID + ":" + TEST_BASE_URL, "Pool key mismatch");
+        assertEquals(statistics.getReadTimeout(), 5000, "Configured read timeout should be applied");
+        assertEquals(statistics.getConnectTimeout(), 3000, "Default connect timeout should be applied");
+        assertEquals(statistics.getMaxConnections(), 20, "Invalid values should fall back to the default");
+        assertEquals(statistics.getMaxConnectionsPerRoute(), 20, "Per route limit should default to the total");
+        assertEquals(httpClientManager.getAsyncResponseTimeout(idVConfigPropertyMap), Duration.ofMillis(5000),
+                "Configured read timeout should be applied to the non-blocking client");
+    }
+
+    @Test
+    public void testConnectionPoolPerSettings() throws Exception {
+
+        HTTPClientManager httpClientManager = HTTPClientManager.getInstance();
+        CloseableHttpClient httpClient = httpClientManager.getHttpClient(idVConfigPropertyMap);
+        assertSame(httpClientManager.getHttpClient(idVConfigPropertyMap), httpClient,
+                "The pool should be reused while the settings are unchanged");
+
+        Map<String, String> updatedConfigPropertyMap = new HashMap<>(idVConfigPropertyMap);
+        updatedConfigPropertyMap.put(KEEP_ALIVE_TIMEOUT, "10000");
+        CloseableHttpClient updatedHttpClient = httpClientManager.getHttpClient(updatedConfigPropertyMap);
+        assertNotSame(updatedHttpClient, httpClient, "A pool should be created for the updated settings");
+
+        // IdV Providers of the tenant with different settings for the same base URL keep using their own pools.
+        for (int i = 0; i < 3; i++) {
+            assertSame(httpClientManager.getHttpClient(idVConfigPropertyMap), httpClient);
+            assertSame(httpClientManager.getHttpClient(updatedConfigPropertyMap), updatedHttpClient);
+        }
+        assertEquals(httpClientManager.getConnectionPoolCount(), 2, "A pool should be kept for each of the settings");
+    }
+}
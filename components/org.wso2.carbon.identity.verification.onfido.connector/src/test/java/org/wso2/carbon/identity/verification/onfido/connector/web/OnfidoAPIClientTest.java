@@ -18,16 +18,20 @@
 
 package org.wso2.carbon.identity.verification.onfido.connector.web;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.HttpVersion;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
 import org.json.JSONObject;
 import org.mockito.MockedStatic;
+import org.mockito.invocation.InvocationOnMock;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoException;
 import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
@@ -38,7 +42,10 @@ import java.util.concurrent.Callable;
 import java.util.function.Function;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertThrows;
@@ -65,6 +72,8 @@ public class OnfidoAPIClientTest {
     private static final String TEST_SDK_TOKEN = "test_sdk_token";
     private static final String STATUS = "status";
     private static final String TEST_STATUS_APPROVED = "approved";
+    private static final int TEST_TENANT_ID = 1;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
 
     private Map<String, String> idVConfigPropertyMap;
 
@@ -115,7 +124,8 @@ public class OnfidoAPIClientTest {
 
         try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
             HttpResponse response = createMockResponse(responseJson, HttpStatus.SC_CREATED);
-            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any())).thenReturn(response);
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
 
             JSONObject result = OnfidoAPIClient.createApplicant(idVConfigPropertyMap, idvClaimsWithValues);
             validateApplicantResponse(result, APPLICANT_ID, TEST_FIRST_NAME, TEST_LAST_NAME);
@@ -134,7 +144,8 @@ public class OnfidoAPIClientTest {
 
         try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
             HttpResponse response = createMockResponse(responseJson, HttpStatus.SC_CREATED);
-            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any())).thenReturn(response);
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
 
             JSONObject result = OnfidoAPIClient.createWorkflowRun(idVConfigPropertyMap, workflowRunRequestBody);
 
@@ -155,7 +166,8 @@ public class OnfidoAPIClientTest {
 
         try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
             HttpResponse response = createMockResponse(responseJson, HttpStatus.SC_OK);
-            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any())).thenReturn(response);
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
 
             JSONObject result = OnfidoAPIClient.createSDKToken(idVConfigPropertyMap, sdkTokenRequestBody);
 
@@ -176,7 +188,8 @@ public class OnfidoAPIClientTest {
 
         try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
             HttpResponse response = createMockResponse(responseJson, HttpStatus.SC_OK);
-            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPut(any(), any(), any())).thenReturn(response);
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPut(any(), any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
 
             JSONObject result =
                     OnfidoAPIClient.updateApplicant(idVConfigPropertyMap, idvClaimsWithValues, TEST_APPLICANT_ID);
@@ -196,7 +209,8 @@ public class OnfidoAPIClientTest {
 
         try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
             HttpResponse response = createMockResponse(responseJson, HttpStatus.SC_OK);
-            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpGet(any(), any())).thenReturn(response);
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpGet(any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
 
             JSONObject result = OnfidoAPIClient.getWorkflowRunStatus(idVConfigPropertyMap, TEST_WORKFLOW_RUN_ID);
 
@@ -208,6 +222,89 @@ public class OnfidoAPIClientTest {
         }
     }
 
+    @Test
+    public void testGetWorkflowRunStatusWithMalformedResponse() throws Exception {
+
+        try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
+            HttpResponse response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK,
+                    null));
+            response.setEntity(new StringEntity("<html>"));
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpGet(any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
+
+            try {
+                OnfidoAPIClient.getWorkflowRunStatus(idVConfigPropertyMap, TEST_WORKFLOW_RUN_ID);
+                fail("Expected OnfidoServerException was not thrown");
+            } catch (OnfidoServerException e) {
+                assertEquals(e.getErrorCode(), ErrorMessage.ERROR_CREATING_RESPONSE.getCode());
+            }
+        }
+    }
+
+    @Test
+    public void testGetWorkflowRunStatusWithRetry() throws Exception {
+
+        JSONObject responseJson = new JSONObject();
+        responseJson.put(ID, TEST_WORKFLOW_RUN_ID);
+        responseJson.put(STATUS, TEST_STATUS_APPROVED);
+
+        try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class);
+             MockedStatic<PrivilegedCarbonContext> mockedCarbonContext = mockCarbonContext()) {
+            HttpResponse unavailableResponse = createMockResponse(new JSONObject(), HttpStatus.SC_SERVICE_UNAVAILABLE);
+            unavailableResponse.setHeader(HttpHeaders.RETRY_AFTER, "0");
+            HttpResponse response = createMockResponse(responseJson, HttpStatus.SC_OK);
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpGet(any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, unavailableResponse))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
+
+            JSONObject result = OnfidoAPIClient.getWorkflowRunStatus(idVConfigPropertyMap, TEST_WORKFLOW_RUN_ID);
+
+            assertEquals(result.getString(STATUS), TEST_STATUS_APPROVED, "Status mismatch");
+            mockedOnfidoWebUtils.verify(() -> OnfidoWebUtils.httpGet(any(), any(), any()), times(2));
+        }
+    }
+
+    @Test
+    public void testUpdateApplicantWithRetriesExhausted() throws Exception {
+
+        JSONObject idvClaimsWithValues = createTestIdvClaimsWithValues();
+
+        try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class);
+             MockedStatic<PrivilegedCarbonContext> mockedCarbonContext = mockCarbonContext()) {
+            HttpResponse response = createMockResponse(new JSONObject(), SC_TOO_MANY_REQUESTS);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "0");
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPut(any(), any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
+
+            try {
+                OnfidoAPIClient.updateApplicant(idVConfigPropertyMap, idvClaimsWithValues, TEST_APPLICANT_ID);
+                fail("Expected OnfidoServerException was not thrown");
+            } catch (OnfidoServerException e) {
+                assertEquals(e.getErrorCode(), ErrorMessage.ERROR_UPDATING_ONFIDO_APPLICANT.getCode());
+            }
+            // The call is attempted once and then retried up to the default maximum of 2 retries.
+            mockedOnfidoWebUtils.verify(() -> OnfidoWebUtils.httpPut(any(), any(), any(), any()), times(3));
+        }
+    }
+
+    @Test
+    public void testCreateSDKTokenWithLongRetryAfter() throws Exception {
+
+        JSONObject sdkTokenRequestBody = createTestSdkTokenRequestBody();
+
+        try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class);
+             MockedStatic<PrivilegedCarbonContext> mockedCarbonContext = mockCarbonContext()) {
+            HttpResponse response = createMockResponse(new JSONObject(), SC_TOO_MANY_REQUESTS);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "60");
+            mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any(), any()))
+                    .thenAnswer(invocation -> handleResponse(invocation, response));
+
+            assertThrows(OnfidoServerException.class,
+                    () -> OnfidoAPIClient.createSDKToken(idVConfigPropertyMap, sdkTokenRequestBody));
+            mockedOnfidoWebUtils.verify(() -> OnfidoWebUtils.httpPost(any(), any(), any(), any()), times(1));
+        }
+    }
+
     @Test
     public void testCreateApplicantWithErrorResponse() throws Exception {
 
@@ -280,9 +377,12 @@ public class OnfidoAPIClientTest {
         for (int statusCode : ERROR_STATUS_CODES) {
             try (MockedStatic<OnfidoWebUtils> mockedOnfidoWebUtils = mockStatic(OnfidoWebUtils.class)) {
                 HttpResponse response = createMockResponse(new JSONObject(), statusCode);
-                mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any())).thenReturn(response);
-                mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPut(any(), any(), any())).thenReturn(response);
-                mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpGet(any(), any())).thenReturn(response);
+                mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPost(any(), any(), any(), any()))
+                        .thenAnswer(invocation -> handleResponse(invocation, response));
+                mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpPut(any(), any(), any(), any()))
+                        .thenAnswer(invocation -> handleResponse(invocation, response));
+                mockedOnfidoWebUtils.when(() -> OnfidoWebUtils.httpGet(any(), any(), any()))
+                        .thenAnswer(invocation -> handleResponse(invocation, response));
 
                 assertThrows(OnfidoException.class, apiCall::call);
 
@@ -320,6 +420,22 @@ public class OnfidoAPIClientTest {
         return response;
     }
 
+    private MockedStatic<PrivilegedCarbonContext> mockCarbonContext() {
+
+        PrivilegedCarbonContext carbonContext = mock(PrivilegedCarbonContext.class);
+        when(carbonContext.getTenantId()).thenReturn(TEST_TENANT_ID);
+        MockedStatic<PrivilegedCarbonContext> mockedCarbonContext = mockStatic(PrivilegedCarbonContext.class);
+        mockedCarbonContext.when(PrivilegedCarbonContext::getThreadLocalCarbonContext).thenReturn(carbonContext);
+        return mockedCarbonContext;
+    }
+
+    private Object handleResponse(InvocationOnMock invocation, HttpResponse response) throws Exception {
+
+        // The response handler is always the last argument of the OnfidoWebUtils methods.
+        ResponseHandler<?> responseHandler = invocation.getArgument(invocation.getArguments().length - 1);
+        return responseHandler.handleResponse(response);
+    }
+
     private void validateApplicantResponse(JSONObject result, String id, String firstName, String lastName) {
 
         assertNotNull(result, "Result JSON object should not be null");
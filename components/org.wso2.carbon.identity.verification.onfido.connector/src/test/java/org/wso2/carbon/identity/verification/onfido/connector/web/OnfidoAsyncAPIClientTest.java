@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.json.JSONObject;
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoClientException;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage;
+
+public class OnfidoAsyncAPIClientTest {
+
+    private static final String TOKEN = "token";
+    private static final String BASE_URL = "base_url";
+    private static final String ID = "id";
+    private static final String STATUS = "status";
+    private static final String WORKFLOW_ID = "workflow_id";
+    private static final String APPLICANT_ID = "applicant_id";
+    private static final String TEST_TOKEN = "test-token";
+    private static final String TEST_BASE_URL = "https://api.onfido.com/v3.6";
+    private static final String TEST_SDK_TOKEN = "test_sdk_token";
+    private static final String TEST_APPLICANT_ID = "test_applicant_id";
+    private static final String TEST_WORKFLOW_ID = "test_workflow_id";
+    private static final String TEST_WORKFLOW_RUN_ID = "test_workflow_run_id";
+    private static final String TEST_STATUS_APPROVED = "approved";
+
+    private static final int TEST_TENANT_ID = 1;
+
+    private Map<String, String> idVConfigPropertyMap;
+    private MockedStatic<OnfidoAsyncWebUtils> mockedOnfidoAsyncWebUtils;
+    private MockedStatic<PrivilegedCarbonContext> mockedCarbonContext;
+
+    @BeforeMethod
+    public void setUp() {
+
+        idVConfigPropertyMap = new HashMap<>();
+        idVConfigPropertyMap.put(TOKEN, TEST_TOKEN);
+        idVConfigPropertyMap.put(BASE_URL, TEST_BASE_URL);
+
+        PrivilegedCarbonContext carbonContext = mock(PrivilegedCarbonContext.class);
+        when(carbonContext.getTenantId()).thenReturn(TEST_TENANT_ID);
+        mockedCarbonContext = mockStatic(PrivilegedCarbonContext.class);
+        mockedCarbonContext.when(PrivilegedCarbonContext::getThreadLocalCarbonContext).thenReturn(carbonContext);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        if (mockedOnfidoAsyncWebUtils != null) {
+            mockedOnfidoAsyncWebUtils.close();
+            mockedOnfidoAsyncWebUtils = null;
+        }
+        mockedCarbonContext.close();
+    }
+
+    @Test
+    public void testCreateSDKToken() {
+
+        mockAsyncWebUtils();
+
+        JSONObject responseJson = new JSONObject();
+        responseJson.put(TOKEN, TEST_SDK_TOKEN);
+        CompletableFuture<HttpResponse<byte[]>> response = createResponse(responseJson, HttpStatus.SC_OK);
+        mockedOnfidoAsyncWebUtils.when(() -> OnfidoAsyncWebUtils.httpPost(any(), any(), any())).thenReturn(response);
+
+        JSONObject sdkTokenRequestBody = new JSONObject();
+        sdkTokenRequestBody.put(APPLICANT_ID, TEST_APPLICANT_ID);
+        JSONObject result = OnfidoAsyncAPIClient.createSDKToken(idVConfigPropertyMap, sdkTokenRequestBody).join();
+
+        assertEquals(result.getString(TOKEN), TEST_SDK_TOKEN, "SDK token mismatch");
+    }
+
+    @Test
+    public void testGetWorkflowRunStatus() {
+
+        mockAsyncWebUtils();
+
+        JSONObject responseJson = new JSONObject();
+        responseJson.put(ID, TEST_WORKFLOW_RUN_ID);
+        responseJson.put(STATUS, TEST_STATUS_APPROVED);
+        CompletableFuture<HttpResponse<byte[]>> response = createResponse(responseJson, HttpStatus.SC_OK);
+        mockedOnfidoAsyncWebUtils.when(() -> OnfidoAsyncWebUtils.httpGet(any(), any())).thenReturn(response);
+
+        JSONObject result =
+                OnfidoAsyncAPIClient.getWorkflowRunStatus(idVConfigPropertyMap, TEST_WORKFLOW_RUN_ID).join();
+
+        assertEquals(result.getString(ID), TEST_WORKFLOW_RUN_ID, "Workflow run ID mismatch");
+        assertEquals(result.getString(STATUS), TEST_STATUS_APPROVED, "Status mismatch");
+    }
+
+    @Test
+    public void testCreateWorkflowRunWithErrorResponse() {
+
+        mockAsyncWebUtils();
+
+        JSONObject workflowRunRequestBody = new JSONObject();
+        workflowRunRequestBody.put(WORKFLOW_ID, TEST_WORKFLOW_ID);
+        workflowRunRequestBody.put(APPLICANT_ID, TEST_APPLICANT_ID);
+
+        mockHttpPostResponse(HttpStatus.SC_UNAUTHORIZED);
+        assertFailure(OnfidoAsyncAPIClient.createWorkflowRun(idVConfigPropertyMap, workflowRunRequestBody),
+                OnfidoClientException.class, ErrorMessage.ERROR_INVALID_TOKEN);
+
+        mockHttpPostResponse(HttpStatus.SC_UNPROCESSABLE_ENTITY);
+        assertFailure(OnfidoAsyncAPIClient.createWorkflowRun(idVConfigPropertyMap, workflowRunRequestBody),
+                OnfidoClientException.class, ErrorMessage.ERROR_INVALID_WORKFLOW_ID);
+
+        mockHttpPostResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        assertFailure(OnfidoAsyncAPIClient.createWorkflowRun(idVConfigPropertyMap, workflowRunRequestBody),
+                OnfidoServerException.class, ErrorMessage.ERROR_CREATING_WORKFLOW_RUN);
+    }
+
+    @Test
+    public void testUpdateApplicantWithNotFoundResponse() {
+
+        mockAsyncWebUtils();
+
+        CompletableFuture<HttpResponse<byte[]>> response =
+                createResponse(new JSONObject(), HttpStatus.SC_NOT_FOUND);
+        mockedOnfidoAsyncWebUtils.when(() -> OnfidoAsyncWebUtils.httpPut(any(), any(), any())).thenReturn(response);
+
+        assertFailure(
+                OnfidoAsyncAPIClient.updateApplicant(idVConfigPropertyMap, new JSONObject(), TEST_APPLICANT_ID),
+                OnfidoServerException.class, ErrorMessage.ERROR_APPLICANT_ID_NOT_FOUND_IN_ONFIDO);
+    }
+
+    @Test
+    public void testGetWorkflowRunStatusWithLongRetryAfter() {
+
+        mockAsyncWebUtils();
+
+        CompletableFuture<HttpResponse<byte[]>> response = createResponse(new JSONObject(),
+                HttpStatus.SC_SERVICE_UNAVAILABLE, Map.of(HttpHeaders.RETRY_AFTER, List.of("60")));
+        mockedOnfidoAsyncWebUtils.when(() -> OnfidoAsyncWebUtils.httpGet(any(), any())).thenReturn(response);
+
+        // Onfido asks to retry later than the connector waits, hence the call fails without being retried.
+        assertFailure(OnfidoAsyncAPIClient.getWorkflowRunStatus(idVConfigPropertyMap, TEST_WORKFLOW_RUN_ID),
+                OnfidoServerException.class, ErrorMessage.ERROR_GETTING_ONFIDO_WORKFLOW_STATUS);
+        mockedOnfidoAsyncWebUtils.verify(() -> OnfidoAsyncWebUtils.httpGet(any(), any()), times(1));
+    }
+
+    @Test
+    public void testPropagateCancellation() {
+
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<Integer> dependent =
+                OnfidoAsyncWebUtils.propagateCancellation(source.thenApply(String::length), source);
+
+        dependent.cancel(true);
+
+        assertTrue(source.isCancelled(), "Cancelling the dependent future should cancel the source future");
+    }
+
+    private void mockAsyncWebUtils() {
+
+        mockedOnfidoAsyncWebUtils = mockStatic(OnfidoAsyncWebUtils.class);
+        mockedOnfidoAsyncWebUtils.when(() -> OnfidoAsyncWebUtils.propagateCancellation(any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private void mockHttpPostResponse(int statusCode) {
+
+        CompletableFuture<HttpResponse<byte[]>> response = createResponse(new JSONObject(), statusCode);
+        mockedOnfidoAsyncWebUtils.when(() -> OnfidoAsyncWebUtils.httpPost(any(), any(), any())).thenReturn(response);
+    }
+
+    private void assertFailure(CompletableFuture<JSONObject> future, Class<? extends Exception> exceptionClass,
+                               ErrorMessage errorMessage) {
+
+        try {
+            future.join();
+            fail("Expected the future to complete exceptionally.");
+        } catch (CompletionException e) {
+            assertTrue(exceptionClass.isInstance(e.getCause()), "Unexpected exception: " + e.getCause());
+            if (e.getCause() instanceof OnfidoClientException) {
+                assertEquals(((OnfidoClientException) e.getCause()).getErrorCode(), errorMessage.getCode());
+            } else {
+                assertEquals(((OnfidoServerException) e.getCause()).getErrorCode(), errorMessage.getCode());
+            }
+        }
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> createResponse(JSONObject responseJson, int statusCode) {
+
+        return createResponse(responseJson, statusCode, Collections.emptyMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<HttpResponse<byte[]>> createResponse(JSONObject responseJson, int statusCode,
+                                                                   Map<String, List<String>> headers) {
+
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(statusCode);
+        when(response.headers()).thenReturn(java.net.http.HttpHeaders.of(headers, (name, value) -> true));
+        when(response.body()).thenReturn(responseJson.toString().getBytes(StandardCharsets.UTF_8));
+        return CompletableFuture.completedFuture(response);
+    }
+}
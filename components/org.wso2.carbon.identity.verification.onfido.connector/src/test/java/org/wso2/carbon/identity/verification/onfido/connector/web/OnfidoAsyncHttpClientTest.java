@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.testng.annotations.Test;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class OnfidoAsyncHttpClientTest {
+
+    private static final int TEST_MAX_CONCURRENT_REQUESTS = 2;
+    private static final long TEST_PERMIT_TIMEOUT = 5000;
+
+    @Test
+    public void testRequestsWaitForPermitsInOrder() {
+
+        OnfidoAsyncHttpClient client = new OnfidoAsyncHttpClient(mock(HttpClient.class),
+                TEST_MAX_CONCURRENT_REQUESTS, TEST_PERMIT_TIMEOUT);
+
+        assertTrue(client.acquirePermit().isDone(), "Requests within the limit should not wait");
+        assertTrue(client.acquirePermit().isDone(), "Requests within the limit should not wait");
+        CompletableFuture<Void> firstWaitingRequest = client.acquirePermit();
+        CompletableFuture<Void> secondWaitingRequest = client.acquirePermit();
+        assertFalse(firstWaitingRequest.isDone(), "Requests beyond the limit should wait");
+        assertEquals(client.getWaitingRequests(), 2, "Waiting request count mismatch");
+
+        // A cancelled request does not take the permit of a completed request.
+        firstWaitingRequest.cancel(true);
+        client.releasePermit();
+        assertTrue(secondWaitingRequest.isDone() && !secondWaitingRequest.isCompletedExceptionally(),
+                "The next waiting request should receive the permit");
+        assertEquals(client.getActiveRequests(), 2, "Active request count mismatch");
+
+        client.releasePermit();
+        client.releasePermit();
+        assertEquals(client.getActiveRequests(), 0, "Active request count mismatch");
+        assertEquals(client.getWaitingRequests(), 0, "Waiting request count mismatch");
+    }
+
+    @Test
+    public void testRequestTimesOutWaitingForPermit() throws Exception {
+
+        OnfidoAsyncHttpClient client = new OnfidoAsyncHttpClient(mock(HttpClient.class), 1, 100);
+        client.acquirePermit();
+
+        CompletableFuture<Void> waitingRequest = client.acquirePermit();
+        try {
+            waitingRequest.get(TEST_PERMIT_TIMEOUT, TimeUnit.MILLISECONDS);
+            fail("The request should time out waiting for a permit");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException, "The request should fail with a timeout");
+        }
+
+        client.releasePermit();
+        assertEquals(client.getActiveRequests(), 0, "The permit should not be handed to the timed out request");
+    }
+}
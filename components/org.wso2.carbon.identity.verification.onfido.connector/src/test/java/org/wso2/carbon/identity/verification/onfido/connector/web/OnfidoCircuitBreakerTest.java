@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.apache.http.HttpStatus;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class OnfidoCircuitBreakerTest {
+
+    private static final String TEST_BASE_URL = "https://api.onfido.com/v3.6";
+    private static final long FAST_CALL_DURATION = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW_CALL_DURATION = TimeUnit.SECONDS.toNanos(3);
+
+    @Test
+    public void testCircuitOpensOnFailures() {
+
+        OnfidoCircuitBreaker circuitBreaker = new OnfidoCircuitBreaker(TEST_BASE_URL);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission(), "Calls should be permitted while closed");
+            circuitBreaker.onResponse(HttpStatus.SC_OK, FAST_CALL_DURATION);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission(), "Calls should be permitted while closed");
+            circuitBreaker.onResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, FAST_CALL_DURATION);
+        }
+        assertEquals(circuitBreaker.getState(), OnfidoCircuitBreaker.State.CLOSED,
+                "The circuit should not open before the minimum number of calls");
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onError();
+        assertEquals(circuitBreaker.getState(), OnfidoCircuitBreaker.State.OPEN,
+                "The circuit should open once half of the calls failed");
+
+        assertFalse(circuitBreaker.tryAcquirePermission(), "Calls should be rejected while open");
+        CircuitBreakerStatistics statistics = circuitBreaker.getStatistics();
+        assertEquals(statistics.getState(), OnfidoCircuitBreaker.State.OPEN.name());
+        assertEquals(statistics.getFailedCalls(), 5, "Failed call count mismatch");
+        assertEquals(statistics.getRejectedCalls(), 1, "Rejected call count mismatch");
+    }
+
+    @Test
+    public void testSlowCallsCountAsFailures() {
+
+        OnfidoCircuitBreaker circuitBreaker = new OnfidoCircuitBreaker(TEST_BASE_URL);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission(), "Calls should be permitted while closed");
+            circuitBreaker.onResponse(HttpStatus.SC_OK, SLOW_CALL_DURATION);
+        }
+
+        assertEquals(circuitBreaker.getState(), OnfidoCircuitBreaker.State.OPEN,
+                "The circuit should open when the calls are slow");
+    }
+
+    @Test
+    public void testClientErrorsDoNotOpenCircuit() {
+
+        OnfidoCircuitBreaker circuitBreaker = new OnfidoCircuitBreaker(TEST_BASE_URL);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission(), "Calls should be permitted while closed");
+            circuitBreaker.onResponse(HttpStatus.SC_UNAUTHORIZED, FAST_CALL_DURATION);
+        }
+
+        assertEquals(circuitBreaker.getState(), OnfidoCircuitBreaker.State.CLOSED,
+                "Client errors should not open the circuit");
+        assertEquals(circuitBreaker.getStatistics().getFailureRate(), 0f, "Failure rate mismatch");
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.verification.onfido.connector.exception.OnfidoServerException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.ErrorMessage;
+
+public class OnfidoRateLimiterTest {
+
+    private static final String TEST_TOKEN_HASH = "test_token_hash";
+    private static final int TEST_PERMITS_PER_MINUTE = 60;
+    private static final long TEST_MAX_WAIT = 2000;
+
+    @Test
+    public void testBurstIsPermittedImmediately() throws Exception {
+
+        OnfidoRateLimiter rateLimiter =
+                new OnfidoRateLimiter(TEST_TOKEN_HASH, TEST_PERMITS_PER_MINUTE, TEST_MAX_WAIT);
+
+        // A tenth of the calls permitted per minute are sent without waiting.
+        for (int i = 0; i < 6; i++) {
+            assertEquals(rateLimiter.reserve(), 0, "Calls within the burst should not wait");
+        }
+        rateLimiter.acquire();
+        assertEquals(rateLimiter.getStatistics().getDelayedCalls(), 1, "Delayed call count mismatch");
+    }
+
+    @Test
+    public void testCallsQueueUntilMaxWait() {
+
+        OnfidoRateLimiter rateLimiter =
+                new OnfidoRateLimiter(TEST_TOKEN_HASH, TEST_PERMITS_PER_MINUTE, TEST_MAX_WAIT);
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.reserve();
+        }
+
+        long firstWait = rateLimiter.reserve();
+        long secondWait = rateLimiter.reserve();
+        assertTrue(firstWait > TimeUnit.MILLISECONDS.toNanos(900), "The call should wait for the next permit");
+        assertTrue(secondWait > firstWait, "Queued calls should be served in order");
+
+        RateLimiterStatistics statistics = rateLimiter.getStatistics();
+        assertEquals(statistics.getQueuedCalls(), 2, "Queued call count mismatch");
+        assertEquals(statistics.getDelayedCalls(), 2, "Delayed call count mismatch");
+
+        // The next call would have to wait for about 3 seconds.
+        assertThrows(OnfidoServerException.class, rateLimiter::acquire);
+        try {
+            rateLimiter.acquire();
+        } catch (OnfidoServerException e) {
+            assertEquals(e.getErrorCode(), ErrorMessage.ERROR_RATE_LIMIT_EXCEEDED.getCode());
+        }
+        assertEquals(rateLimiter.getStatistics().getRejectedCalls(), 2, "Rejected call count mismatch");
+
+        rateLimiter.onWaitCompleted();
+        rateLimiter.onWaitCompleted();
+        assertEquals(rateLimiter.getStatistics().getQueuedCalls(), 0, "Queued call count mismatch");
+    }
+}
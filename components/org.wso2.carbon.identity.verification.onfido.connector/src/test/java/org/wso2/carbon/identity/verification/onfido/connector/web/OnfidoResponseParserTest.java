@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class OnfidoResponseParserTest {
+
+    private static final String ID = "id";
+    private static final String STATUS = "status";
+    private static final String OUTPUT = "output";
+    private static final String TAGS = "tags";
+    private static final String DASHBOARD_URL = "dashboard_url";
+    private static final String TEST_WORKFLOW_RUN_ID = "test_workflow_run_id";
+    private static final String TEST_STATUS_APPROVED = "approved";
+
+    @Test
+    public void testParseSkipsNestedValues() throws Exception {
+
+        JSONObject output = new JSONObject()
+                .put("document", new JSONObject().put(ID, "test_document_id").put(STATUS, "clear"))
+                .put("breakdown", new JSONArray().put(new JSONObject().put(STATUS, "consider")));
+        JSONObject responseJson = new JSONObject()
+                .put(OUTPUT, output)
+                .put(TAGS, new JSONArray().put("tag"))
+                .put(ID, TEST_WORKFLOW_RUN_ID)
+                .put(STATUS, TEST_STATUS_APPROVED)
+                .put(DASHBOARD_URL, "https://dashboard.onfido.com");
+
+        JSONObject result = OnfidoResponseParser.parse(toStream(responseJson.toString()), Set.of(ID, STATUS));
+
+        assertEquals(result.length(), 2, "Only the requested fields should be extracted");
+        assertEquals(result.getString(ID), TEST_WORKFLOW_RUN_ID, "Workflow run ID mismatch");
+        assertEquals(result.getString(STATUS), TEST_STATUS_APPROVED, "Status mismatch");
+    }
+
+    @Test
+    public void testParseAllScalarFields() throws Exception {
+
+        JSONObject responseJson = new JSONObject()
+                .put(ID, TEST_WORKFLOW_RUN_ID)
+                .put(OUTPUT, new JSONObject().put(STATUS, "clear"))
+                .put("sandbox", true)
+                .put("reasons", JSONObject.NULL);
+
+        JSONObject result = OnfidoResponseParser.parse(
+                responseJson.toString().getBytes(StandardCharsets.UTF_8), Collections.emptySet());
+
+        assertEquals(result.getString(ID), TEST_WORKFLOW_RUN_ID, "Workflow run ID mismatch");
+        assertTrue(result.getBoolean("sandbox"), "Boolean value mismatch");
+        assertTrue(result.isNull("reasons"), "Null value mismatch");
+        assertFalse(result.has(OUTPUT), "Nested values should not be extracted");
+    }
+
+    @Test
+    public void testParseStopsOnceAllFieldsAreFound() throws Exception {
+
+        // The malformed tail is never reached since the requested field comes first.
+        String response = "{\"" + ID + "\":\"" + TEST_WORKFLOW_RUN_ID + "\",\"" + OUTPUT + "\":{";
+
+        JSONObject result = OnfidoResponseParser.parse(toStream(response), Set.of(ID));
+
+        assertEquals(result.getString(ID), TEST_WORKFLOW_RUN_ID, "Workflow run ID mismatch");
+    }
+
+    @Test
+    public void testParseInvalidResponse() {
+
+        assertThrows(IOException.class, () -> OnfidoResponseParser.parse(toStream("[]"), Set.of(ID)));
+        assertThrows(IOException.class, () -> OnfidoResponseParser.parse(toStream("<html>"), Set.of(ID)));
+    }
+
+    private ByteArrayInputStream toStream(String response) {
+
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.verification.onfido.connector.web;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.RATE_LIMIT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.RATE_LIMIT_MAX_WAIT;
+import static org.wso2.carbon.identity.verification.onfido.connector.constants.OnfidoConstants.TOKEN;
+
+public class RateLimiterManagerTest {
+
+    @Test
+    public void testSharedTokenUsesMostRestrictiveSettings() throws Exception {
+
+        Map<String, String> firstProvider = buildConfigProperties("shared_test_token", "120", "3000");
+        Map<String, String> secondProvider = buildConfigProperties("shared_test_token", "60", "5000");
+
+        RateLimiterManager rateLimiterManager = RateLimiterManager.getInstance();
+        rateLimiterManager.getRateLimiter(firstProvider);
+        OnfidoRateLimiter rateLimiter = rateLimiterManager.getRateLimiter(secondProvider);
+        RateLimiterStatistics statistics = rateLimiter.getStatistics();
+        assertEquals(statistics.getPermitsPerMinute(), 60, "The lowest rate limit should be applied");
+        assertEquals(statistics.getMaxWaitTime(), 3000, "The shortest maximum wait should be applied");
+
+        // Alternating calls of the IdV Providers keep using the same limiter.
+        for (int i = 0; i < 3; i++) {
+            assertSame(rateLimiterManager.getRateLimiter(firstProvider), rateLimiter);
+            assertSame(rateLimiterManager.getRateLimiter(secondProvider), rateLimiter);
+        }
+    }
+
+    private Map<String, String> buildConfigProperties(String token, String rateLimit, String maxWait) {
+
+        Map<String, String> configProperties = new HashMap<>();
+        configProperties.put(TOKEN, token);
+        configProperties.put(RATE_LIMIT, rateLimit);
+        configProperties.put(RATE_LIMIT_MAX_WAIT, maxWait);
+        return configProperties;
+    }
+}